@@ -0,0 +1,64 @@
+package com.java.benchmark;
+
+import java.util.List;
+import java.util.Map;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import com.java.abstractclass.AbstractPortalPage;
+import com.java.utils.PageReadiness;
+import com.java.utils.XPathTemplate;
+
+/**
+ * Page exposing the AbstractPortalPage helpers to the benchmarks.
+ */
+public class BenchmarkPage extends AbstractPortalPage {
+
+	private static final String CONTENT_X = "//div[contains(@id, 'content')]";
+
+	public BenchmarkPage(WebDriver driver) {
+		super(driver);
+	}
+
+	@Override
+	protected void declareReadiness(PageReadiness readiness) {
+		readiness.requireVisible("Content", CONTENT_X);
+	}
+
+	public static <T> T open(WebDriver driver, Class<T> proxy) throws Exception {
+		return getPage(driver, proxy);
+	}
+
+	public void clickElement(WebElement element) {
+		click("Benchmark element", element);
+	}
+
+	public void enterText(WebElement input, String value) {
+		enterTextInInputField(input, value);
+	}
+
+	public void fill(Map<String, String> fields, FillMode mode) {
+		fillForm("Benchmark form", fields, mode);
+	}
+
+	public static String[] textOf(List<WebElement> elements) {
+		return getText(elements);
+	}
+
+	public List<String> textsOf(String xpath) {
+		return getTexts(xpath);
+	}
+
+	public void select(WebElement dropdown, String text) {
+		selectDropDownOption("Benchmark drop down", dropdown, text);
+	}
+
+	public WebElement waitForVisible(XPathTemplate template, String... args) {
+		return waitForXPathVisibility("Benchmark template", template, args);
+	}
+
+	public WebElement waitForVisible(String xpath) {
+		return waitForXPathVisibility("Benchmark xpath", xpath);
+	}
+}
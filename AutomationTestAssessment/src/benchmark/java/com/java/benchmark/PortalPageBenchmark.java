@@ -0,0 +1,160 @@
+package com.java.benchmark;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.PageFactory;
+
+import com.java.abstractclass.AbstractPortalPage.FillMode;
+import com.java.pageobjects.HomePage;
+import com.java.pageobjects.KataPage;
+import com.java.testsupport.FakeWebDriver;
+import com.java.utils.XPathTemplate;
+
+/**
+ * Measures the CPU and allocation overhead of the page object framework
+ * against FakeWebDriver. With latencyMicros=0 the results are the framework's
+ * own cost; a non-zero latency shows how the number of round-trips of each
+ * helper adds up. Run with -prof gc to see allocations per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PortalPageBenchmark {
+
+	private static final String RESULTS_X = "//div[contains(@class, 'list-item-kata')]";
+	private static final String DROPDOWN_X = "//select[contains(@id, 'language_filter')]";
+	private static final String EMAIL_X = "//input[contains(@id, 'user_email')]";
+	private static final String PASSWORD_X = "//input[contains(@id, 'user_password')]";
+
+	@Param({ "0", "50" })
+	public long latencyMicros;
+
+	@Param({ "10", "200" })
+	public int elementCount;
+
+	private final XPathTemplate template = new XPathTemplate(
+			"//div[contains(@class, 'list-item-kata') and .//a[contains(text(), {0})]]//i");
+
+	private FakeWebDriver driver;
+	private BenchmarkPage page;
+	private WebElement element;
+	private WebElement dropdown;
+	private List<WebElement> elements;
+	private WebElement emailInput;
+	private WebElement passwordInput;
+	private final Map<String, String> loginForm = new LinkedHashMap<>();
+	private boolean selectJava;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		driver = new FakeWebDriver(latencyMicros);
+		driver.setElementCount(elementCount);
+		page = new BenchmarkPage(driver);
+		element = driver.findElement(By.xpath(RESULTS_X));
+		dropdown = driver.findElement(By.xpath(DROPDOWN_X));
+		elements = driver.findElements(By.xpath(RESULTS_X));
+		emailInput = driver.findElement(By.xpath(EMAIL_X));
+		passwordInput = driver.findElement(By.xpath(PASSWORD_X));
+		loginForm.put(EMAIL_X, "user@example.com");
+		loginForm.put(PASSWORD_X, "secret");
+	}
+
+	@Benchmark
+	public Object getPageHomePage() throws Exception {
+		return BenchmarkPage.open(driver, HomePage.class);
+	}
+
+	@Benchmark
+	public Object getPageKataPage() throws Exception {
+		return BenchmarkPage.open(driver, KataPage.class);
+	}
+
+	// the reflective binding the generated binders replace, for comparison
+	@Benchmark
+	public Object pageFactoryKataPage() {
+		return PageFactory.initElements(driver, KataPage.class);
+	}
+
+	@Benchmark
+	public void click() {
+		page.clickElement(element);
+	}
+
+	// the two login fields entered one by one, for comparison with fillForm
+	@Benchmark
+	public void enterTextInInputFields() {
+		page.enterText(emailInput, "user@example.com");
+		page.enterText(passwordInput, "secret");
+	}
+
+	@Benchmark
+	public void fillFormFast() {
+		page.fill(loginForm, FillMode.FAST);
+	}
+
+	@Benchmark
+	public void fillFormTyping() {
+		page.fill(loginForm, FillMode.TYPING);
+	}
+
+	@Benchmark
+	public String[] getTextOfElementList() {
+		return BenchmarkPage.textOf(elements);
+	}
+
+	@Benchmark
+	public List<String> getTextsOfXPath() {
+		return page.textsOf(RESULTS_X);
+	}
+
+	@Benchmark
+	public Long getMax() {
+		return page.getMax();
+	}
+
+	@Benchmark
+	public void selectDropDownOption() {
+		selectJava = !selectJava;
+		page.select(dropdown, selectJava ? "Java" : "All");
+	}
+
+	@Benchmark
+	public WebElement waitForXPathVisibility() {
+		return page.waitForVisible(RESULTS_X);
+	}
+
+	@Benchmark
+	public WebElement waitForXPathTemplateVisibility() {
+		return page.waitForVisible(template, "Multiply");
+	}
+
+	@Benchmark
+	public By xpathTemplateCachedBy() {
+		return template.by("Multiply");
+	}
+
+	@Benchmark
+	public String xpathTemplateFillIn() {
+		return template.xpath("Don't \"quote\" me");
+	}
+}
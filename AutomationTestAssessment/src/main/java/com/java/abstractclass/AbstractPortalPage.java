@@ -1,7 +1,21 @@
 package com.java.abstractclass;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.lang3.StringUtils;
 import org.openqa.selenium.By;
@@ -11,21 +25,148 @@ import org.openqa.selenium.StaleElementReferenceException;
 import org.openqa.selenium.TimeoutException;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
-import org.openqa.selenium.interactions.Actions;
 import org.openqa.selenium.support.PageFactory;
 import org.openqa.selenium.support.ui.ExpectedCondition;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.Select;
 import org.openqa.selenium.support.ui.WebDriverWait;
 
+import com.java.artifacts.FailureArtifacts;
+import com.java.binding.DomGeneration;
+import com.java.binding.LazyWebElement;
+import com.java.binding.PageBinder;
+import com.java.binding.PageBinders;
+import com.java.metrics.ActionMetrics;
+import com.java.metrics.PageTimings;
+import com.java.metrics.WireCommands;
+import com.java.utils.Interactions;
+import com.java.utils.MutationWaits;
+import com.java.utils.MutationWaits.Condition;
+import com.java.utils.PageReadiness;
+import com.java.utils.ScriptBatch;
+import com.java.utils.Waits;
+import com.java.utils.XPathTemplate;
+
 public abstract class AbstractPortalPage {
 
 	protected static final int DEFAULT_VISIBILITY_TIMEOUT = 30;
 
+	private static final boolean ASYNC_TRANSITIONS = "async".equalsIgnoreCase(System.getProperty("page.transitions"));
+
+	// checks the page loads with page.transitions=async, one at a time per test thread
+	private static final ExecutorService PAGE_LOAD_EXECUTOR = Executors.newCachedThreadPool(new ThreadFactory() {
+
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable task) {
+			Thread thread = new Thread(task, "page-load-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	// the background load check not awaited yet, by driver
+	private static final Map<WebDriver, Future<?>> PENDING_LOADS = Collections
+			.synchronizedMap(new WeakHashMap<WebDriver, Future<?>>());
+
+	// retry interval of a refused click or hover, mostly a transition still running
+	private static final long INTERACTION_POLLING_MILLIS = 100;
+
 	protected static final String SELF_X = "self::*";
 
+	// window and document heights read by getMax, in one round-trip
+	private static final ScriptBatch PAGE_HEIGHTS_JS = new ScriptBatch()
+			.read("winH", "window.innerHeight")
+			.read("docOff", "document.body.offsetHeight")
+			.read("scrollOff", "document.body.scrollHeight")
+			.read("cliH", "document.documentElement.clientHeight")
+			.read("scrollH", "document.documentElement.scrollHeight")
+			.read("offH", "document.documentElement.offsetHeight");
+
+	// scrolls by the max page size in the direction passed as args[0] (1 or -1)
+	private static final ScriptBatch SCROLL_PAGE_JS = new ScriptBatch()
+			.append(PAGE_HEIGHTS_JS)
+			.read("max", "Math.max(0, results.winH, results.docOff, results.scrollOff, results.cliH, results.scrollH, results.offH)")
+			.run("window.scrollBy(0, args[0] * results.max)");
+
+	/*
+	 * text of every element matching the xpath in arguments[0]. Hidden elements
+	 * have no text, as with WebElement.getText(), and fall back on their value.
+	 */
+	private static final String GET_TEXTS_JS = "var found = document.evaluate(arguments[0], document, null,"
+			+ " XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null);"
+			+ "var texts = [];"
+			+ "for (var i = 0; i < found.snapshotLength; i++) {"
+			+ "  var e = found.snapshotItem(i);"
+			+ "  var text = e.getClientRects().length > 0 ? (e.innerText || '') : '';"
+			+ "  text = text.replace(/\\u00a0/g, ' ').trim();"
+			+ "  if (!text && e.value != null) { text = String(e.value).trim(); }"
+			+ "  texts.push(text);"
+			+ "}"
+			+ "return texts;";
+
+	/*
+	 * locates the fields with the xpaths in arguments[0] and returns [element,
+	 * current value] for each, null for the fields not displayed. When arguments[2]
+	 * is true the fields not holding the value in arguments[1] are set through the
+	 * native value setter (so frameworks tracking the property see the change)
+	 * and get the input and change events typing would have fired.
+	 */
+	private static final String FILL_FORM_JS = "var xpaths = arguments[0], values = arguments[1], set = arguments[2];"
+			+ "var fields = [];"
+			+ "for (var i = 0; i < xpaths.length; i++) {"
+			+ "  var e = document.evaluate(xpaths[i], document, null,"
+			+ "      XPathResult.FIRST_ORDERED_NODE_TYPE, null).singleNodeValue;"
+			+ "  if (!e || e.getClientRects().length == 0) { fields.push(null); continue; }"
+			+ "  var current = e.value == null ? '' : String(e.value).replace(/\\r/g, '');"
+			+ "  if (set && current !== values[i]) {"
+			+ "    var setter = Object.getOwnPropertyDescriptor(Object.getPrototypeOf(e), 'value');"
+			+ "    if (setter && setter.set) { setter.set.call(e, values[i]); } else { e.value = values[i]; }"
+			+ "    e.dispatchEvent(new Event('input', { bubbles: true }));"
+			+ "    e.dispatchEvent(new Event('change', { bubbles: true }));"
+			+ "  }"
+			+ "  fields.push([e, current]);"
+			+ "}"
+			+ "return fields;";
+
+	/**
+	 * How fillForm enters the values.
+	 * <ul>
+	 * <li>FAST sets every changed field and fires its input and change events in a
+	 * single script.
+	 * <li>TYPING clicks every changed field, clears it and sends the keystrokes.
+	 * </ul>
+	 * The default mode is TYPING, which goes through the page's key handlers like
+	 * a user does; the system property form.fill.mode=fast selects FAST, for load
+	 * runs and benchmarks.
+	 */
+	public enum FillMode {
+		FAST, TYPING;
+
+		public static final FillMode DEFAULT = "fast".equalsIgnoreCase(System.getProperty("form.fill.mode")) ? FAST
+				: TYPING;
+	}
+
+	/**
+	 * Url of the portal under test. Can be overridden with the portal.base.url
+	 * system property.
+	 */
+	protected static final String BASE_URL = System.getProperty("portal.base.url", "https://www.codewars.com");
+
 	// protected Actions actions;
-	protected WebDriver driver;
+	/*
+	 * Each page object is bound to the session it was created with. Sessions are
+	 * thread-confined (see DriverManager), so pages are never shared between
+	 * parallel test threads.
+	 */
+	protected final WebDriver driver;
+
+	// the background load check of the page, null once it is awaited
+	private volatile Future<?> pageLoad;
+
+	// the elements looked up by cachedElement, by locator
+	private final Map<By, LazyWebElement> elements = new HashMap<>();
 
 	protected AbstractPortalPage(WebDriver driver) {
 		this.driver = driver;
@@ -33,13 +174,111 @@ public abstract class AbstractPortalPage {
 	}
 
 	/**
-	 * Wait for page to completely load.
+	 * Wait for page to completely load. All elements declared by
+	 * declareReadiness are checked together, in a single wait.
+	 * <p>
+	 * With page.transitions=async the wait runs in the background and the page is
+	 * returned at once; its first action awaits the wait (see awaitPageLoad), so
+	 * the test can do other work meanwhile as long as it doesn't use the driver
+	 * directly. A check still running when the next page is created, or when the
+	 * driver quits, is awaited first (see awaitPageLoads).
+	 * <p>
+	 * With page.timings=true the browser's timings of the document are then read
+	 * (see PageTimings).
+	 */
+	protected void waitForPageLoadComplete() {
+		final PageReadiness readiness = new PageReadiness();
+		declareReadiness(readiness);
+		if (ASYNC_TRANSITIONS) {
+			/*
+			 * only the wait itself runs in the background, it calls no action of the page
+			 * so it never awaits itself
+			 */
+			awaitPageLoads(driver);
+			pageLoad = PAGE_LOAD_EXECUTOR.submit(WireCommands.countedAsCaller(() -> awaitReadiness(readiness)));
+			PENDING_LOADS.put(driver, pageLoad);
+		} else {
+			awaitReadiness(readiness);
+		}
+	}
+
+	private void awaitReadiness(PageReadiness readiness) {
+		ActionMetrics.Timer timer = ActionMetrics.start();
+		try {
+			readiness.await(driver, DEFAULT_VISIBILITY_TIMEOUT, getClass());
+		} finally {
+			timer.stop(getClass(), "waitForPageLoadComplete", null);
+		}
+		PageTimings.capture(driver, getClass());
+	}
+
+	/**
+	 * Blocks until the page is loaded when its load is checked in the background,
+	 * and rethrows the error of a failed check. Called by every action of the page
+	 * before it uses the driver, returns at once when the page is already loaded.
+	 * Steps timed up to a page being ready call it too.
+	 */
+	public void awaitPageLoad() {
+		Future<?> load = pageLoad;
+		if (load == null) {
+			return;
+		}
+		ActionMetrics.Timer timer = ActionMetrics.start();
+		try {
+			await(load, getClass().getSimpleName());
+		} finally {
+			pageLoad = null;
+			PENDING_LOADS.remove(driver, load);
+			timer.stop(getClass(), "awaitPageLoad", null);
+		}
+	}
+
+	/**
+	 * Blocks until the background load check of the last page created with the
+	 * driver is done, and rethrows the error of a failed check. A page that is
+	 * never acted on doesn't await its own load, so this is called before the
+	 * driver is used directly (HomePage.getPage, DashboardPage.getPage) or quits
+	 * (see DriverManager.quitDriver), for the check not to run against another
+	 * document and its failure to be reported.
+	 * 
+	 * @param driver
+	 */
+	public static void awaitPageLoads(WebDriver driver) {
+		Future<?> load = PENDING_LOADS.remove(driver);
+		if (load != null) {
+			await(load, "the page");
+		}
+	}
+
+	private static void await(Future<?> load, String page) {
+		try {
+			load.get();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IllegalStateException(cause);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for " + page + " to load.", e);
+		}
+	}
+
+	/**
+	 * Declares the elements that have to be visible for the page to be loaded.
+	 * 
+	 * @param readiness
 	 */
-	protected abstract void waitForPageLoadComplete();
+	protected abstract void declareReadiness(PageReadiness readiness);
 
 	/**
-	 * Wrapper method for PageFactory.initElements. Simplifies error message
-	 * displayed.
+	 * Creates the page and binds its elements with the binder generated for it,
+	 * or with PageFactory.initElements for pages without one. Simplifies error
+	 * message displayed.
 	 * 
 	 * @param driver
 	 * @param proxy
@@ -48,19 +287,43 @@ public abstract class AbstractPortalPage {
 	protected static <T> T getPage(WebDriver driver, Class<T> proxy) throws Exception {
 		T t = null;
 
+		// a new document, the elements found on the previous one are dropped
+		DomGeneration.advance(driver);
+		ActionMetrics.Timer timer = ActionMetrics.start();
 		try {
-			t = PageFactory.initElements(driver, proxy);
+			PageBinder<T> binder = PageBinders.forPage(proxy);
+			t = binder != null ? binder.bind(driver) : PageFactory.initElements(driver, proxy);
 		} catch (Exception e) {
 			StringBuffer b = new StringBuffer();
 			b.append("An error occured while navigating to the ");
 			b.append(proxy.getSimpleName());
 			b.append(" page.\n");
 			throw new RuntimeException(b.toString(), e);
+		} finally {
+			timer.stop(proxy, "getPage", null);
 		}
 
 		return t;
 	}
 
+	/**
+	 * Gets the element of the locator, reused by every call with the same locator
+	 * until the page is refreshed or left. It is located when first used and again
+	 * when it went stale, as a <code>@FindBy</code> field is.
+	 * 
+	 * @param by
+	 * @return the element
+	 */
+	protected WebElement cachedElement(By by) {
+		awaitPageLoad();
+		LazyWebElement element = elements.get(by);
+		if (element == null) {
+			element = new LazyWebElement(driver, by, false);
+			elements.put(by, element);
+		}
+		return element;
+	}
+
 	/**
 	 * Waits for provided xpath to be visible.
 	 * 
@@ -68,9 +331,23 @@ public abstract class AbstractPortalPage {
 	 * @param xpath
 	 */
 	protected WebElement waitForXPathVisibility(String xpathDescription, String xpath) {
+		awaitPageLoad();
 		return waitForXPathVisibility(xpathDescription, driver, xpath, DEFAULT_VISIBILITY_TIMEOUT, getClass());
 	}
 
+	/**
+	 * Waits for the xpath built from the template to be visible.
+	 * 
+	 * @param xpathDescription
+	 * @param template
+	 * @param args             the values of the template placeholders
+	 */
+	protected WebElement waitForXPathVisibility(String xpathDescription, XPathTemplate template, String... args) {
+		awaitPageLoad();
+		return waitForXPathVisibility(xpathDescription, driver, template.by(args), DEFAULT_VISIBILITY_TIMEOUT,
+				getClass());
+	}
+
 	/**
 	 * Waits for provided xpath to be visible.
 	 * 
@@ -81,21 +358,42 @@ public abstract class AbstractPortalPage {
 	 */
 	protected WebElement waitForXPathVisibility(String xpathDescription, WebDriver driver, String xpath, int timeout,
 			Class<?> cls) {
-		WebDriverWait wait = new WebDriverWait(driver, timeout);
+		return waitForXPathVisibility(xpathDescription, driver, By.xpath(xpath), timeout, cls);
+	}
+
+	/**
+	 * Waits for provided xpath locator to be visible.
+	 * 
+	 * @param xpathDescription
+	 * @param driver
+	 * @param locator
+	 * @param timeout
+	 */
+	protected WebElement waitForXPathVisibility(String xpathDescription, WebDriver driver, By locator, int timeout,
+			Class<?> cls) {
 		WebElement element = null;
 
+		ActionMetrics.Timer timer = ActionMetrics.start();
 		try {
-			element = wait.until(ExpectedConditions.visibilityOfElementLocated(By.xpath(xpath)));
+			if (useMutationWaits(locator)) {
+				element = MutationWaits.waitForXPath(driver, getXPath(locator), Condition.VISIBLE, null, timeout);
+			} else {
+				WebDriverWait wait = Waits.newWait(driver, timeout);
+				element = wait.until(ExpectedConditions.visibilityOfElementLocated(locator));
+			}
 		} catch (TimeoutException e) {
 			StringBuffer error = new StringBuffer();
 			error.append("EXPECTED element [name: ");
 			error.append(getDescription(xpathDescription));
 			error.append(", XPATH: ");
-			error.append(xpath);
+			error.append(getXPath(locator));
 			error.append(" ] was NOT VISIBLE on ");
 			error.append(cls.getSimpleName());
 			error.append(" after ").append(timeout).append(" seconds. ");
+			captureFailure(error, driver, cls, "waitForXPathVisibility");
 			throw new AssertionError(error.toString(), e);
+		} finally {
+			timer.stop(cls, "waitForXPathVisibility", xpathDescription);
 		}
 		return element;
 	}
@@ -107,9 +405,22 @@ public abstract class AbstractPortalPage {
 	 * @param xpath
 	 */
 	protected void waitForXPathInvisibility(String xpathDescription, String xpath) {
+		awaitPageLoad();
 		waitForXPathInvisibility(xpathDescription, driver, xpath, DEFAULT_VISIBILITY_TIMEOUT, getClass());
 	}
 
+	/**
+	 * Waits for the xpath built from the template to be invisible.
+	 * 
+	 * @param xpathDescription
+	 * @param template
+	 * @param args             the values of the template placeholders
+	 */
+	protected void waitForXPathInvisibility(String xpathDescription, XPathTemplate template, String... args) {
+		awaitPageLoad();
+		waitForXPathInvisibility(xpathDescription, driver, template.by(args), DEFAULT_VISIBILITY_TIMEOUT, getClass());
+	}
+
 	/**
 	 * Waits for provided xpath to be invisible.
 	 * 
@@ -120,23 +431,60 @@ public abstract class AbstractPortalPage {
 	 */
 	protected void waitForXPathInvisibility(String xpathDescription, WebDriver driver, String xpath, int timeout,
 			Class<?> cls) {
-		WebDriverWait wait = new WebDriverWait(driver, timeout);
+		waitForXPathInvisibility(xpathDescription, driver, By.xpath(xpath), timeout, cls);
+	}
 
+	/**
+	 * Waits for provided xpath locator to be invisible.
+	 * 
+	 * @param xpathDescription
+	 * @param driver
+	 * @param locator
+	 * @param timeout
+	 */
+	protected void waitForXPathInvisibility(String xpathDescription, WebDriver driver, By locator, int timeout,
+			Class<?> cls) {
+		ActionMetrics.Timer timer = ActionMetrics.start();
 		try {
-			wait.until(ExpectedConditions.invisibilityOfElementLocated(By.xpath(xpath)));
+			if (useMutationWaits(locator)) {
+				MutationWaits.waitForXPath(driver, getXPath(locator), Condition.INVISIBLE, null, timeout);
+			} else {
+				WebDriverWait wait = Waits.newWait(driver, timeout);
+				wait.until(ExpectedConditions.invisibilityOfElementLocated(locator));
+			}
 		} catch (TimeoutException e) {
 			StringBuffer error = new StringBuffer();
 			error.append("UNEXPECTED element [name: ");
 			error.append(getDescription(xpathDescription));
 			error.append(", XPATH: ");
-			error.append(xpath);
+			error.append(getXPath(locator));
 			error.append(" ] was STILL VISIBLE on ");
 			error.append(cls.getSimpleName());
 			error.append(" after ").append(timeout).append(" seconds. ");
 			throw new AssertionError(error.toString(), e);
+		} finally {
+			timer.stop(cls, "waitForXPathInvisibility", xpathDescription);
 		}
 	}
 
+	/**
+	 * The MutationObserver engine works on xpaths, other locators are polled.
+	 * 
+	 * @param locator
+	 * @return true if the wait for the locator should use MutationWaits
+	 */
+	private static boolean useMutationWaits(By locator) {
+		return MutationWaits.ENABLED && locator instanceof By.ByXPath;
+	}
+
+	/**
+	 * @param locator
+	 * @return the xpath of an xpath locator, for error messages
+	 */
+	protected static String getXPath(By locator) {
+		return StringUtils.removeStart(locator.toString(), "By.xpath: ");
+	}
+
 	protected static String getDescription(String value) {
 		String description = "<unspecified>";
 		if (value != null && !value.isEmpty()) {
@@ -167,34 +515,27 @@ public abstract class AbstractPortalPage {
 	 * @param element
 	 */
 	protected void click(String elementDescription, WebElement element) {
+		awaitPageLoad();
 		click(elementDescription, driver, element, getClass());
 	}
 
 	protected static void click(String elementDescription, WebDriver driver, WebElement element, Class<?> cls) {
-		WebDriverWait wait = new WebDriverWait(driver, DEFAULT_VISIBILITY_TIMEOUT);
+		if (MutationWaits.ENABLED) {
+			clickWhenClickable(elementDescription, driver, element, cls);
+			return;
+		}
+		WebDriverWait wait = Waits.newWait(driver, DEFAULT_VISIBILITY_TIMEOUT);
+		wait.pollingEvery(Duration.ofMillis(INTERACTION_POLLING_MILLIS));
+		ActionMetrics.Timer timer = ActionMetrics.start();
+		Interactions.Path path = null;
 		try {
-			//
-			wait.until(new ExpectedCondition<Boolean>() {
+			// no clickable condition polled first, the native click is refused until it is
+			final Interactions.ClickAttempts attempts = new Interactions.ClickAttempts(driver, element);
+			path = wait.until(new ExpectedCondition<Interactions.Path>() {
 
 				@Override
-				public Boolean apply(WebDriver arg0) {
-					boolean result;
-					try {
-						// expectation for checking an element is visible and
-						// enabled such that we can
-						// click it.
-						WebElement e = ExpectedConditions.elementToBeClickable(element).apply(driver);
-						if (e != null) {
-							Actions action = new Actions(driver);
-							action.click(element).perform();
-							result = true;
-						} else {
-							result = false;
-						}
-					} catch (StaleElementReferenceException e) {
-						result = false;
-					}
-					return result;
+				public Interactions.Path apply(WebDriver arg0) {
+					return attempts.tryClick();
 				}
 			});
 		} catch (TimeoutException e) {
@@ -202,7 +543,59 @@ public abstract class AbstractPortalPage {
 			error.append(getDescription(elementDescription)).append("] was not clickable on ");
 			error.append(cls.getSimpleName()).append(" after ");
 			error.append(DEFAULT_VISIBILITY_TIMEOUT).append(" seconds.");
+			captureFailure(error, driver, cls, "click");
 			throw new AssertionError(error.toString(), e);
+		} finally {
+			timer.stop(cls, "click", elementDescription, path);
+		}
+	}
+
+	/**
+	 * Click loop of the MutationObserver engine: blocks until the element is
+	 * clickable, then clicks it, again if the click was refused or the element
+	 * went stale in between.
+	 * 
+	 * @param elementDescription
+	 * @param driver
+	 * @param element
+	 * @param cls
+	 */
+	private static void clickWhenClickable(String elementDescription, WebDriver driver, WebElement element,
+			Class<?> cls) {
+		Clock clock = Waits.clockOf(driver);
+		long deadline = clock.millis() + TimeUnit.SECONDS.toMillis(DEFAULT_VISIBILITY_TIMEOUT);
+		ActionMetrics.Timer timer = ActionMetrics.start();
+		Interactions.Path path = null;
+		Interactions.ClickAttempts attempts = new Interactions.ClickAttempts(driver, element);
+		try {
+			while (true) {
+				int remaining = (int) TimeUnit.MILLISECONDS.toSeconds(deadline - clock.millis() + 999);
+				if (remaining <= 0) {
+					throw new TimeoutException("Element was not clickable.");
+				}
+				try {
+					MutationWaits.waitForElement(driver, element, Condition.CLICKABLE, remaining);
+					path = attempts.tryClick();
+					if (path != null) {
+						return;
+					}
+					// refused or covered, the element reads as clickable again at once
+					Waits.sleep(driver, INTERACTION_POLLING_MILLIS);
+				} catch (StaleElementReferenceException e) {
+					// a lazy element is located again on the next try, a plain one until the timeout
+					Interactions.invalidate(element);
+					Waits.sleep(driver, INTERACTION_POLLING_MILLIS);
+				}
+			}
+		} catch (TimeoutException e) {
+			StringBuffer error = new StringBuffer("Element [name: ");
+			error.append(getDescription(elementDescription)).append("] was not clickable on ");
+			error.append(cls.getSimpleName()).append(" after ");
+			error.append(DEFAULT_VISIBILITY_TIMEOUT).append(" seconds.");
+			captureFailure(error, driver, cls, "click");
+			throw new AssertionError(error.toString(), e);
+		} finally {
+			timer.stop(cls, "click", elementDescription, path);
 		}
 	}
 
@@ -220,27 +613,115 @@ public abstract class AbstractPortalPage {
 	 */
 
 	protected void enterTextInInputField(WebElement input, final String newValue) {
-		String currentValue;
+		awaitPageLoad();
+		ActionMetrics.Timer timer = ActionMetrics.start();
+		try {
+			String currentValue;
 
-		if (newValue != null) {
-			hover("An input field.", input);
+			if (newValue != null) {
+				hover("An input field.", input);
 
-			// getting current value in input field
-			currentValue = getInputFieldText(input);
-			/*
-			 * if current value is different from the value passed in argument then enter it
-			 * in the input field
-			 */
-			if (!StringUtils.equals(newValue, currentValue)) {
-				click("An input field.", input);
+				// getting current value in input field
+				currentValue = getInputFieldText(input);
+				/*
+				 * if current value is different from the value passed in argument then enter it
+				 * in the input field
+				 */
+				if (!StringUtils.equals(newValue, currentValue)) {
+					click("An input field.", input);
+
+					// if input input field is not empty, then clear it
+					if (!StringUtils.isEmpty(currentValue)) {
+						input.clear();
+					}
+
+					input.sendKeys(newValue);
+				}
+			}
+		} finally {
+			timer.stop(getClass(), "enterTextInInputField", "An input field.");
+		}
+	}
+
+	/**
+	 * Fills a form with the default FillMode.
+	 * 
+	 * @param formDescription
+	 * @param fields          the values by field xpath, null values are skipped
+	 */
+	protected void fillForm(String formDescription, Map<String, String> fields) {
+		fillForm(formDescription, fields, FillMode.DEFAULT);
+	}
+
+	/**
+	 * Fills a form. The current values of all fields are read in one script and
+	 * only the fields holding another value are entered, as enterTextInInputField
+	 * does for a single field. Waits for the fields not displayed yet.
+	 * 
+	 * @param formDescription
+	 * @param fields          the values by field xpath, null values are skipped
+	 * @param mode
+	 */
+	protected void fillForm(String formDescription, Map<String, String> fields, FillMode mode) {
+		awaitPageLoad();
+		final List<String> xpaths = new ArrayList<>();
+		final List<String> values = new ArrayList<>();
+		for (Map.Entry<String, String> field : fields.entrySet()) {
+			if (field.getValue() != null) {
+				xpaths.add(field.getKey());
+				values.add(field.getValue());
+			}
+		}
+		if (xpaths.isEmpty()) {
+			return;
+		}
+
+		final boolean set = mode == FillMode.FAST;
+		final List<String> missing = new ArrayList<>();
+		ActionMetrics.Timer timer = ActionMetrics.start();
+		try {
+			WebDriverWait wait = Waits.newWait(driver, DEFAULT_VISIBILITY_TIMEOUT);
+			wait.pollingEvery(Duration.ofMillis(INTERACTION_POLLING_MILLIS));
+			List<?> found = wait.until(new ExpectedCondition<List<?>>() {
 
-				// if input input field is not empty, then clear it
-				if (!StringUtils.isEmpty(currentValue)) {
-					input.clear();
+				@Override
+				public List<?> apply(WebDriver arg0) {
+					// the fields already set are left as they are on the next try
+					Object result = ((JavascriptExecutor) driver).executeScript(FILL_FORM_JS, xpaths, values, set);
+					List<?> list = result instanceof List ? (List<?>) result : Collections.emptyList();
+					missing.clear();
+					for (int i = 0; i < xpaths.size(); i++) {
+						if (i >= list.size() || !(list.get(i) instanceof List)) {
+							missing.add(xpaths.get(i));
+						}
+					}
+					return missing.isEmpty() ? list : null;
 				}
+			});
 
-				input.sendKeys(newValue);
+			if (!set) {
+				for (int i = 0; i < xpaths.size(); i++) {
+					List<?> field = (List<?>) found.get(i);
+					WebElement input = (WebElement) field.get(0);
+					String currentValue = String.valueOf(field.get(1));
+					if (!StringUtils.equals(values.get(i), currentValue)) {
+						click("An input field.", input);
+						if (!StringUtils.isEmpty(currentValue)) {
+							input.clear();
+						}
+						input.sendKeys(values.get(i));
+					}
+				}
 			}
+		} catch (TimeoutException e) {
+			StringBuffer error = new StringBuffer("Fields ");
+			error.append(missing).append(" of ").append(getDescription(formDescription));
+			error.append(" were NOT VISIBLE on ").append(getClass().getSimpleName());
+			error.append(" after ").append(DEFAULT_VISIBILITY_TIMEOUT).append(" seconds.");
+			captureFailure(error, driver, getClass(), "fillForm");
+			throw new AssertionError(error.toString(), e);
+		} finally {
+			timer.stop(getClass(), "fillForm", formDescription, mode.name().toLowerCase());
 		}
 	}
 
@@ -249,6 +730,7 @@ public abstract class AbstractPortalPage {
 	 * @return the value from input field 'e'
 	 */
 	protected String getInputFieldText(WebElement e) {
+		awaitPageLoad();
 		return e.getAttribute("value").replaceAll("\r", "");
 	}
 
@@ -284,6 +766,27 @@ public abstract class AbstractPortalPage {
 		return elementsText;
 	}
 
+	/**
+	 * Gets the text of every element matching the xpath in a single script, so the
+	 * cost doesn't grow with the number of elements. Like getText(WebElement) the
+	 * value attribute is used for elements without visible text.
+	 * 
+	 * @param xpath
+	 * @return the texts in document order
+	 */
+	protected List<String> getTexts(String xpath) {
+		awaitPageLoad();
+		Object result = ((JavascriptExecutor) driver).executeScript(GET_TEXTS_JS, xpath);
+
+		List<String> texts = new ArrayList<>();
+		if (result instanceof List) {
+			for (Object text : (List<?>) result) {
+				texts.add(String.valueOf(text).replace("&nbsp;", " ").trim());
+			}
+		}
+		return texts;
+	}
+
 	/**
 	 * Verifies if an element is displayed. If an element can not be found in the
 	 * DOM this method will return "Not Displayed".
@@ -292,6 +795,7 @@ public abstract class AbstractPortalPage {
 	 * @return
 	 */
 	protected boolean isElementDisplayed(WebElement element) {
+		awaitPageLoad();
 
 		boolean isDisplayed = false;
 		try {
@@ -306,18 +810,16 @@ public abstract class AbstractPortalPage {
 	 * Scrolls the page down.
 	 */
 	public void scrollPageDown() {
-		Long max = getMax();
-		JavascriptExecutor jsx = (JavascriptExecutor) driver;
-		jsx.executeScript(String.format("window.scrollBy(0, %s)", String.valueOf((long) max)), "");
+		awaitPageLoad();
+		SCROLL_PAGE_JS.execute(driver, 1);
 	}
 
 	/**
 	 * Scrolls the page up.
 	 */
 	public void scrollPageUp() {
-		Long max = getMax();
-		JavascriptExecutor jsx = (JavascriptExecutor) driver;
-		jsx.executeScript(String.format("window.scrollBy(0, -%s)", String.valueOf((long) max)), "");
+		awaitPageLoad();
+		SCROLL_PAGE_JS.execute(driver, -1);
 	}
 
 	/**
@@ -326,18 +828,11 @@ public abstract class AbstractPortalPage {
 	 * @return long
 	 */
 	public Long getMax() {
-		JavascriptExecutor jsx = (JavascriptExecutor) driver;
-		Long winH = (Long) jsx.executeScript("return window.innerHeight;");
-		Long docOff = (Long) jsx.executeScript("return document.body.offsetHeight;");
-		Long scrollOff = (Long) jsx.executeScript("return document.body.scrollHeight;");
-		Long cliH = (Long) jsx.executeScript("return document.documentElement.clientHeight;");
-		Long scrollH = (Long) jsx.executeScript("return document.documentElement.scrollHeight;");
-		Long offH = (Long) jsx.executeScript("return document.documentElement.offsetHeight;");
-		Long[] longs = new Long[] { winH, docOff, scrollOff, cliH, scrollH, offH };
+		awaitPageLoad();
+		ScriptBatch.Results heights = PAGE_HEIGHTS_JS.execute(driver);
 		Long L = (long) 0;
-		for (int i = 0; i < longs.length; i++) {
-			Long l = java.lang.Math.max(longs[i], L);
-			L = l;
+		for (String key : PAGE_HEIGHTS_JS.getKeys()) {
+			L = java.lang.Math.max(heights.getLong(key), L);
 		}
 		return L;
 	}
@@ -350,9 +845,24 @@ public abstract class AbstractPortalPage {
 	 * @return
 	 */
 	protected boolean isXPathDisplayed(final String xpath) {
+		awaitPageLoad();
 		return !driver.findElements(By.xpath(xpath)).isEmpty();
 	}
 
+	/**
+	 * Verifies if an element matching the xpath built from the template is
+	 * displayed. If an element can not be found in the DOM this method will return
+	 * false.
+	 * 
+	 * @param template
+	 * @param args     the values of the template placeholders
+	 * @return
+	 */
+	protected boolean isXPathDisplayed(XPathTemplate template, String... args) {
+		awaitPageLoad();
+		return !driver.findElements(template.by(args)).isEmpty();
+	}
+
 	/**
 	 * Waits for the provided element is visible.
 	 * 
@@ -360,6 +870,7 @@ public abstract class AbstractPortalPage {
 	 * @param element
 	 */
 	protected void waitForElementVisibility(String elementDescription, WebElement element) {
+		awaitPageLoad();
 		waitForElementVisibility(elementDescription, driver, element, getClass());
 	}
 
@@ -373,16 +884,27 @@ public abstract class AbstractPortalPage {
 	 */
 	public static void waitForElementVisibility(String elementDescription, WebDriver driver, WebElement element,
 			Class<?> cls) {
-		WebDriverWait wait = new WebDriverWait(driver, DEFAULT_VISIBILITY_TIMEOUT);
-
+		ActionMetrics.Timer timer = ActionMetrics.start();
 		try {
-			wait.until(ExpectedConditions.visibilityOf(element));
-		} catch (TimeoutException e) {
+			if (MutationWaits.ENABLED) {
+				MutationWaits.waitForElement(driver, element, Condition.VISIBLE, DEFAULT_VISIBILITY_TIMEOUT);
+			} else {
+				WebDriverWait wait = Waits.newWait(driver, DEFAULT_VISIBILITY_TIMEOUT);
+				wait.until(ExpectedConditions.visibilityOf(element));
+			}
+		} catch (TimeoutException | StaleElementReferenceException e) {
 			StringBuffer error = new StringBuffer();
 			error.append("An EXPECTED element [name:").append(getDescription(elementDescription));
-			error.append("] was NOT VISIBLE on ").append(cls.getSimpleName());
-			error.append(" after ").append(DEFAULT_VISIBILITY_TIMEOUT).append(" seconds.");
+			if (e instanceof StaleElementReferenceException) {
+				// only a plain element, a lazy one is located again by the wait
+				error.append("] was REMOVED from the page on ").append(cls.getSimpleName()).append('.');
+			} else {
+				error.append("] was NOT VISIBLE on ").append(cls.getSimpleName());
+				error.append(" after ").append(DEFAULT_VISIBILITY_TIMEOUT).append(" seconds.");
+			}
 			throw new AssertionError(error.toString(), e);
+		} finally {
+			timer.stop(cls, "waitForElementVisibility", elementDescription);
 		}
 	}
 
@@ -393,17 +915,63 @@ public abstract class AbstractPortalPage {
 	 * @param element
 	 */
 	protected void hover(String elementDescription, WebElement element) {
+		awaitPageLoad();
+		WebDriverWait wait = Waits.newWait(driver, DEFAULT_VISIBILITY_TIMEOUT);
+		wait.pollingEvery(Duration.ofMillis(INTERACTION_POLLING_MILLIS));
+		ActionMetrics.Timer timer = ActionMetrics.start();
 		try {
-			Actions action = new Actions(driver);
+			// the move is refused until the element is displayed, no visibility wait first
+			wait.until(new ExpectedCondition<Boolean>() {
 
-			waitForElementVisibility(elementDescription, element);
-			action.moveToElement(element).build().perform();
+				@Override
+				public Boolean apply(WebDriver arg0) {
+					return Interactions.tryHover(driver, element) ? Boolean.TRUE : null;
+				}
+			});
 		} catch (TimeoutException e) {
 			StringBuffer error = new StringBuffer();
 			error.append("Unable to hover over ").append(getDescription(elementDescription));
 			error.append(" on ").append(getClass().getSimpleName());
 			error.append(" after ").append(DEFAULT_VISIBILITY_TIMEOUT).append(" seconds.");
 			throw new AssertionError(error.toString(), e);
+		} finally {
+			timer.stop(getClass(), "hover", elementDescription);
+		}
+	}
+
+	/**
+	 * Hovers over an element and clicks another one (or the same) in a single
+	 * action chain, for the elements only clickable while the pointer is over
+	 * their container.
+	 * 
+	 * @param elementDescription
+	 * @param hoverTarget
+	 * @param clickTarget
+	 */
+	protected void hoverAndClick(String elementDescription, WebElement hoverTarget, WebElement clickTarget) {
+		awaitPageLoad();
+		WebDriverWait wait = Waits.newWait(driver, DEFAULT_VISIBILITY_TIMEOUT);
+		wait.pollingEvery(Duration.ofMillis(INTERACTION_POLLING_MILLIS));
+		ActionMetrics.Timer timer = ActionMetrics.start();
+		Interactions.Path path = null;
+		final Interactions.ClickAttempts attempts = new Interactions.ClickAttempts(driver, clickTarget);
+		try {
+			path = wait.until(new ExpectedCondition<Interactions.Path>() {
+
+				@Override
+				public Interactions.Path apply(WebDriver arg0) {
+					return attempts.tryHoverAndClick(hoverTarget);
+				}
+			});
+		} catch (TimeoutException e) {
+			StringBuffer error = new StringBuffer("Element [name: ");
+			error.append(getDescription(elementDescription)).append("] was not clickable on ");
+			error.append(getClass().getSimpleName()).append(" after ");
+			error.append(DEFAULT_VISIBILITY_TIMEOUT).append(" seconds.");
+			captureFailure(error, driver, getClass(), "hoverAndClick");
+			throw new AssertionError(error.toString(), e);
+		} finally {
+			timer.stop(getClass(), "hoverAndClick", elementDescription, path);
 		}
 	}
 
@@ -416,9 +984,15 @@ public abstract class AbstractPortalPage {
 	 * @param text
 	 */
 	protected void waitForElementTextToChange(String xpath, String elementDescription, String text) {
-		WebDriverWait wait = new WebDriverWait(driver, 30);
+		awaitPageLoad();
+		ActionMetrics.Timer timer = ActionMetrics.start();
 		try {
-			wait.until(ExpectedConditions.invisibilityOfElementWithText(By.xpath(xpath), text));
+			if (MutationWaits.ENABLED) {
+				MutationWaits.waitForXPath(driver, xpath, Condition.TEXT_CHANGED, text, DEFAULT_VISIBILITY_TIMEOUT);
+			} else {
+				WebDriverWait wait = Waits.newWait(driver, 30);
+				wait.until(ExpectedConditions.invisibilityOfElementWithText(By.xpath(xpath), text));
+			}
 		} catch (TimeoutException e) {
 			StringBuffer error = new StringBuffer();
 			error.append("Expected text '").append(text).append("' didn't change for ")
@@ -426,6 +1000,8 @@ public abstract class AbstractPortalPage {
 			error.append(" on ").append(getClass().getSimpleName());
 			error.append(" after ").append(DEFAULT_VISIBILITY_TIMEOUT).append(" seconds.");
 			throw new AssertionError(error.toString(), e);
+		} finally {
+			timer.stop(getClass(), "waitForElementTextToChange", elementDescription);
 		}
 	}
 
@@ -438,6 +1014,19 @@ public abstract class AbstractPortalPage {
 	 * @param text
 	 */
 	protected void selectDropDownOption(String elementName, WebElement dropdown, String textSelection) {
+		awaitPageLoad();
+		ActionMetrics.Timer timer = ActionMetrics.start();
+		try {
+			selectOption(elementName, dropdown, textSelection);
+		} finally {
+			timer.stop(getClass(), "selectDropDownOption", elementName);
+		}
+	}
+
+	/**
+	 * Selects the option, see selectDropDownOption.
+	 */
+	private void selectOption(String elementName, WebElement dropdown, String textSelection) {
 
 		if (elementName == null) {
 			return;
@@ -463,11 +1052,12 @@ public abstract class AbstractPortalPage {
 					b.append(" The menus current option are : ");
 					b.append(Arrays.asList((getText(select.getOptions()))));
 				}
+				captureFailure(b, driver, getClass(), "selectDropDownOption");
 				throw new AssertionError(b.toString(), e);
 			}
 
 			try {
-				wait = new WebDriverWait(driver, DEFAULT_VISIBILITY_TIMEOUT);
+				wait = Waits.newWait(driver, DEFAULT_VISIBILITY_TIMEOUT);
 				wait.until(new ExpectedCondition<Boolean>() {
 
 					@Override
@@ -486,15 +1076,31 @@ public abstract class AbstractPortalPage {
 			} catch (Exception e) {
 				StringBuffer b = new StringBuffer();
 				b.append("Unable to verify that the selection has actually changed. ");
+				captureFailure(b, driver, getClass(), "selectDropDownOption");
 				throw new AssertionError(b.toString(), e);
 			}
 		}
 	}
 
+	/**
+	 * Saves a screenshot and the source of the page in the background (see
+	 * FailureArtifacts) and adds where to find them to the error message.
+	 * 
+	 * @param error
+	 * @param driver
+	 * @param cls
+	 * @param action
+	 */
+	private static void captureFailure(StringBuffer error, WebDriver driver, Class<?> cls, String action) {
+		FailureArtifacts.appendTo(error, driver, cls, action);
+	}
+
 	/**
 	 * Refreshes the page.
 	 */
 	public void refresh() {
+		awaitPageLoad();
 		driver.navigate().refresh();
+		DomGeneration.advance(driver);
 	}
 }
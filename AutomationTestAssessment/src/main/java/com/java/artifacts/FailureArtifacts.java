@@ -0,0 +1,131 @@
+package com.java.artifacts;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+/**
+ * Saves a screenshot and the page source when a wait or an action of a page
+ * fails. Only the capture runs on the test thread; compressing and writing the
+ * files runs on a small bounded pool, so a failing test isn't slowed down by
+ * the disk. The files go to <code>-Dfailure.artifacts.dir</code>
+ * (test-output/failures by default); <code>-Dfailure.artifacts=false</code>
+ * turns the capture off.
+ */
+public final class FailureArtifacts {
+
+	public static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("failure.artifacts", "true"));
+
+	private static final File DIR = new File(System.getProperty("failure.artifacts.dir",
+			new File(System.getProperty("user.dir"), "test-output/failures").getPath()));
+
+	private static final int WRITERS = 2;
+	private static final int MAX_PENDING = 32;
+
+	private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+	// the threads end once idle, the JVM still waits for the pending writes; a full queue rejects the write
+	private static final ThreadPoolExecutor WRITER = new ThreadPoolExecutor(WRITERS, WRITERS, 5, TimeUnit.SECONDS,
+			new ArrayBlockingQueue<>(MAX_PENDING), runnable -> new Thread(runnable, "failure-artifacts"),
+			new ThreadPoolExecutor.AbortPolicy());
+
+	static {
+		WRITER.allowCoreThreadTimeOut(true);
+	}
+
+	private FailureArtifacts() {
+	}
+
+	/**
+	 * Captures the screenshot and the source of the current page and saves them
+	 * in the background.
+	 * 
+	 * @param driver
+	 * @param page   the page the failure happened on
+	 * @param action the failed action
+	 * @return the path of the files, without the .png / .html.gz extension, or
+	 *         null if nothing could be captured or too many writes are pending
+	 */
+	public static String capture(WebDriver driver, Class<?> page, String action) {
+		if (!ENABLED || driver == null) {
+			return null;
+		}
+		byte[] screenshot = null;
+		String source = null;
+		try {
+			if (driver instanceof TakesScreenshot) {
+				screenshot = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
+			}
+			source = driver.getPageSource();
+		} catch (WebDriverException e) {
+			// the browser is gone or busy, keep what was captured
+		}
+		if (screenshot == null && source == null) {
+			return null;
+		}
+
+		String name = page.getSimpleName() + "-" + action + "-" + System.currentTimeMillis() + "-"
+				+ SEQUENCE.incrementAndGet();
+		File base = new File(DIR, name);
+		byte[] png = screenshot;
+		String html = source;
+		try {
+			WRITER.execute(() -> write(base, png, html));
+		} catch (RejectedExecutionException e) {
+			System.err.println("Too many failure artifacts pending, dropping " + base + ".");
+			return null;
+		}
+		return base.getPath();
+	}
+
+	/**
+	 * Captures the current page (see capture) and adds where to find the files to
+	 * the error message.
+	 * 
+	 * @param error  the message of the failure
+	 * @param driver
+	 * @param page   the page the failure happened on
+	 * @param action the failed action
+	 */
+	public static void appendTo(StringBuffer error, WebDriver driver, Class<?> page, String action) {
+		String artifacts = capture(driver, page, action);
+		if (artifacts != null) {
+			error.append(" Screenshot and page source: ").append(artifacts).append(".*");
+		}
+	}
+
+	private static void write(File base, byte[] png, String html) {
+		DIR.mkdirs();
+		try {
+			if (png != null) {
+				try (OutputStream out = new FileOutputStream(base.getPath() + ".png")) {
+					out.write(png);
+				}
+			}
+			if (html != null) {
+				try (Writer out = new OutputStreamWriter(
+						new GZIPOutputStream(new FileOutputStream(base.getPath() + ".html.gz")),
+						StandardCharsets.UTF_8)) {
+					out.write(html);
+				}
+			}
+		} catch (IOException e) {
+			System.err.println("Could not save the failure artifacts " + base + ": " + e);
+		}
+	}
+}
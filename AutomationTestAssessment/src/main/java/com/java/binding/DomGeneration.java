@@ -0,0 +1,43 @@
+package com.java.binding;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Counts the documents a driver went through. The page objects advance it on
+ * every refresh and navigation, the elements located before then are dropped
+ * by LazyWebElement instead of being used and found stale.
+ */
+public final class DomGeneration {
+
+	private static final Map<Object, long[]> GENERATIONS = Collections.synchronizedMap(new WeakHashMap<>());
+
+	private DomGeneration() {
+	}
+
+	/**
+	 * @param context the driver (or search context) the elements are located from
+	 * @return the current generation of its document
+	 */
+	public static long current(Object context) {
+		long[] generation = GENERATIONS.get(context);
+		return generation == null ? 0 : generation[0];
+	}
+
+	/**
+	 * Records that the document of the driver was replaced.
+	 *
+	 * @param context the driver
+	 */
+	public static void advance(Object context) {
+		synchronized (GENERATIONS) {
+			long[] generation = GENERATIONS.get(context);
+			if (generation == null) {
+				GENERATIONS.put(context, new long[] { 1 });
+			} else {
+				generation[0]++;
+			}
+		}
+	}
+}
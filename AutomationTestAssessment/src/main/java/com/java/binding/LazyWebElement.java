@@ -0,0 +1,180 @@
+package com.java.binding;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WrapsElement;
+import org.openqa.selenium.interactions.Coordinates;
+import org.openqa.selenium.interactions.Locatable;
+
+/**
+ * An element located when it is used, like the proxies PageFactory puts in
+ * <code>@FindBy</code> fields, but without reflection.
+ * <p>
+ * The element found is reused until the DomGeneration of the context changes
+ * (a refresh or a navigation), or forever with <code>@CacheLookup</code>. A
+ * call failing because the element went stale in between locates it again and
+ * is retried once.
+ */
+public class LazyWebElement implements WebElement, WrapsElement, Locatable {
+
+	private final SearchContext context;
+	private final By by;
+	private final boolean cacheLookup;
+	private WebElement cached;
+	private long generation;
+
+	public LazyWebElement(SearchContext context, By by, boolean cacheLookup) {
+		this.context = context;
+		this.by = by;
+		this.cacheLookup = cacheLookup;
+	}
+
+	/**
+	 * @return the locator of the element
+	 */
+	public By getBy() {
+		return by;
+	}
+
+	@Override
+	public WebElement getWrappedElement() {
+		long current = cacheLookup ? generation : DomGeneration.current(context);
+		if (cached == null || generation != current) {
+			cached = context.findElement(by);
+			generation = current;
+		}
+		return cached;
+	}
+
+	/**
+	 * Drops the element found, the next call locates it again. For the callers
+	 * getting a StaleElementReferenceException from a command the element was
+	 * passed to (actions, scripts).
+	 */
+	public void invalidate() {
+		cached = null;
+	}
+
+	private <R> R call(Function<WebElement, R> command) {
+		WebElement element = getWrappedElement();
+		try {
+			return command.apply(element);
+		} catch (StaleElementReferenceException e) {
+			invalidate();
+			return command.apply(getWrappedElement());
+		}
+	}
+
+	private void run(Consumer<WebElement> command) {
+		call(element -> {
+			command.accept(element);
+			return null;
+		});
+	}
+
+	@Override
+	public void click() {
+		run(element -> element.click());
+	}
+
+	@Override
+	public void submit() {
+		run(element -> element.submit());
+	}
+
+	@Override
+	public void sendKeys(CharSequence... keysToSend) {
+		run(element -> element.sendKeys(keysToSend));
+	}
+
+	@Override
+	public void clear() {
+		run(element -> element.clear());
+	}
+
+	@Override
+	public String getTagName() {
+		return call(element -> element.getTagName());
+	}
+
+	@Override
+	public String getAttribute(String name) {
+		return call(element -> element.getAttribute(name));
+	}
+
+	@Override
+	public boolean isSelected() {
+		return call(element -> element.isSelected());
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return call(element -> element.isEnabled());
+	}
+
+	@Override
+	public String getText() {
+		return call(element -> element.getText());
+	}
+
+	@Override
+	public List<WebElement> findElements(By by) {
+		return call(element -> element.findElements(by));
+	}
+
+	@Override
+	public WebElement findElement(By by) {
+		return call(element -> element.findElement(by));
+	}
+
+	@Override
+	public boolean isDisplayed() {
+		return call(element -> element.isDisplayed());
+	}
+
+	@Override
+	public Point getLocation() {
+		return call(element -> element.getLocation());
+	}
+
+	@Override
+	public Dimension getSize() {
+		return call(element -> element.getSize());
+	}
+
+	@Override
+	public Rectangle getRect() {
+		return call(element -> element.getRect());
+	}
+
+	@Override
+	public String getCssValue(String propertyName) {
+		return call(element -> element.getCssValue(propertyName));
+	}
+
+	@Override
+	public <X> X getScreenshotAs(OutputType<X> target) throws WebDriverException {
+		return call(element -> element.getScreenshotAs(target));
+	}
+
+	@Override
+	public Coordinates getCoordinates() {
+		return call(element -> ((Locatable) element).getCoordinates());
+	}
+
+	@Override
+	public String toString() {
+		return "Lazy element for: " + by;
+	}
+}
@@ -0,0 +1,19 @@
+package com.java.binding;
+
+import org.openqa.selenium.WebDriver;
+
+/**
+ * Creates a page object and binds its <code>@FindBy</code> elements without
+ * PageFactory's field scan and proxies. Implementations are generated at compile time by
+ * PageBinderProcessor as <code>&lt;Page&gt;_Binder</code>, next to the page.
+ *
+ * @param <T> the page class
+ */
+public interface PageBinder<T> {
+
+	/**
+	 * @param driver
+	 * @return the page with its elements bound
+	 */
+	T bind(WebDriver driver);
+}
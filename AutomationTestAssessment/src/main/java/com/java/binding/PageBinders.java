@@ -0,0 +1,82 @@
+package com.java.binding;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.openqa.selenium.WebElement;
+
+/**
+ * Finds the generated binder of a page class. The lookup is done once per
+ * class, the binder is then reused by every navigation to the page.
+ */
+public final class PageBinders {
+
+	private static final String SUFFIX = "_Binder";
+
+	// pages without a generated binder, bound by PageFactory
+	private static final PageBinder<?> NONE = driver -> null;
+
+	private static final Map<Class<?>, PageBinder<?>> BINDERS = new ConcurrentHashMap<>();
+
+	private PageBinders() {
+	}
+
+	/**
+	 * @param page
+	 * @return the binder of the page or null if none was generated for it
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> PageBinder<T> forPage(Class<T> page) {
+		PageBinder<?> binder = BINDERS.computeIfAbsent(page, PageBinders::load);
+		return binder == NONE ? null : (PageBinder<T>) binder;
+	}
+
+	/**
+	 * Looks up the setter of a private element field, for the generated binders.
+	 * A constant handle costs about as much as a field assignment once compiled.
+	 * 
+	 * @param page  the class declaring the field
+	 * @param field the field name
+	 * @return the setter, taking the page and the element
+	 */
+	public static MethodHandle setter(Class<?> page, String field) {
+		try {
+			Field declared = page.getDeclaredField(field);
+			declared.setAccessible(true);
+			return MethodHandles.lookup().unreflectSetter(declared);
+		} catch (ReflectiveOperationException e) {
+			// the page changed since its binder was generated
+			throw new IllegalStateException("No field " + field + " in " + page.getName(), e);
+		}
+	}
+
+	/**
+	 * Sets an element field through its setter.
+	 * 
+	 * @param setter  see setter(Class, String)
+	 * @param page
+	 * @param element
+	 */
+	public static void set(MethodHandle setter, Object page, WebElement element) {
+		try {
+			setter.invoke(page, element);
+		} catch (Throwable e) {
+			throw new IllegalStateException("Unable to bind an element of " + page.getClass().getName(), e);
+		}
+	}
+
+	private static PageBinder<?> load(Class<?> page) {
+		try {
+			Class<?> cls = Class.forName(page.getName() + SUFFIX, true, page.getClassLoader());
+			if (PageBinder.class.isAssignableFrom(cls)) {
+				return (PageBinder<?>) cls.getConstructor().newInstance();
+			}
+		} catch (ReflectiveOperationException | LinkageError e) {
+			// compiled without the annotation processor
+		}
+		return NONE;
+	}
+}
@@ -0,0 +1,154 @@
+package com.java.budgets;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.json.JsonException;
+
+/**
+ * The step durations of the last runs, kept in a json file by run settings
+ * (see PerformanceBudgets.getSettings): for each settings a list of runs, each
+ * mapping the step names to the durations in ms of the step in that run. A
+ * headless run or another wait engine doesn't share the baseline of the
+ * others. Only the most recent runs are kept, so the baseline follows the
+ * accepted changes.
+ */
+public class BudgetHistory {
+
+	private final String settings;
+	private final List<Map<String, List<Long>>> runs;
+	// the runs of the other settings, written back unchanged
+	private final Map<String, List<Map<String, List<Long>>>> others;
+
+	/**
+	 * @param settings the settings of the runs
+	 * @param runs     the runs, the oldest first
+	 */
+	public BudgetHistory(String settings, List<Map<String, List<Long>>> runs) {
+		this(settings, runs, Collections.<String, List<Map<String, List<Long>>>>emptyMap());
+	}
+
+	private BudgetHistory(String settings, List<Map<String, List<Long>>> runs,
+			Map<String, List<Map<String, List<Long>>>> others) {
+		this.settings = settings;
+		this.runs = Collections.unmodifiableList(new ArrayList<>(runs));
+		this.others = Collections.unmodifiableMap(new TreeMap<>(others));
+	}
+
+	/**
+	 * Reads the runs of the settings from the history file, an empty history if
+	 * it is missing or unreadable.
+	 *
+	 * @param file
+	 * @param settings
+	 * @return the history
+	 */
+	public static BudgetHistory load(File file, String settings) {
+		List<Map<String, List<Long>>> runs = new ArrayList<>();
+		Map<String, List<Map<String, List<Long>>>> others = new TreeMap<>();
+		if (!file.isFile()) {
+			return new BudgetHistory(settings, runs, others);
+		}
+		try {
+			String text = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+			Map<?, ?> stored = new Json().toType(text, Map.class);
+			for (Map.Entry<?, ?> entry : stored.entrySet()) {
+				List<Map<String, List<Long>>> read = readRuns((List<?>) entry.getValue());
+				if (settings.equals(entry.getKey())) {
+					runs = read;
+				} else {
+					others.put(String.valueOf(entry.getKey()), read);
+				}
+			}
+		} catch (IOException | JsonException | ClassCastException e) {
+			System.err.println("Ignoring the unreadable budget history " + file + ": " + e.getMessage());
+			runs.clear();
+			others.clear();
+		}
+		return new BudgetHistory(settings, runs, others);
+	}
+
+	private static List<Map<String, List<Long>>> readRuns(List<?> stored) {
+		List<Map<String, List<Long>>> runs = new ArrayList<>();
+		for (Object run : stored) {
+			Map<String, List<Long>> steps = new LinkedHashMap<>();
+			for (Map.Entry<?, ?> step : ((Map<?, ?>) run).entrySet()) {
+				List<Long> millis = new ArrayList<>();
+				for (Object value : (List<?>) step.getValue()) {
+					millis.add(((Number) value).longValue());
+				}
+				steps.put(String.valueOf(step.getKey()), millis);
+			}
+			runs.add(steps);
+		}
+		return runs;
+	}
+
+	/**
+	 * @return the settings of the runs
+	 */
+	public String getSettings() {
+		return settings;
+	}
+
+	/**
+	 * @return the runs of the settings, the oldest first
+	 */
+	public List<Map<String, List<Long>>> getRuns() {
+		return runs;
+	}
+
+	/**
+	 * @param step
+	 * @return the durations of the step over all the runs of the settings, in ms
+	 */
+	public List<Long> getSamples(String step) {
+		List<Long> samples = new ArrayList<>();
+		for (Map<String, List<Long>> run : runs) {
+			List<Long> millis = run.get(step);
+			if (millis != null) {
+				samples.addAll(millis);
+			}
+		}
+		return samples;
+	}
+
+	/**
+	 * @param run     the durations of a new run with the settings, by step
+	 * @param maxRuns the number of runs kept for the settings
+	 * @return a history ending with the run, without the runs over maxRuns
+	 */
+	public BudgetHistory append(Map<String, List<Long>> run, int maxRuns) {
+		List<Map<String, List<Long>>> all = new ArrayList<>(runs);
+		all.add(run);
+		return new BudgetHistory(settings, all.subList(Math.max(0, all.size() - maxRuns), all.size()), others);
+	}
+
+	/**
+	 * Writes the runs of all the settings.
+	 *
+	 * @param file
+	 * @throws IOException
+	 */
+	public void write(File file) throws IOException {
+		File dir = file.getAbsoluteFile().getParentFile();
+		if (dir != null) {
+			dir.mkdirs();
+		}
+		Map<String, Object> all = new TreeMap<>(others);
+		all.put(settings, runs);
+		try (PrintWriter out = new PrintWriter(file, StandardCharsets.UTF_8.name())) {
+			out.println(new Json().toJson(all));
+		}
+	}
+}
@@ -0,0 +1,43 @@
+package com.java.budgets;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+
+/**
+ * Writes the budget report to test-output/metrics when the suite finishes and
+ * adds the step durations of the run to the budget history, keeping the last
+ * budget.history.runs (20) runs.
+ */
+public class PerformanceBudgetListener implements ISuiteListener {
+
+	@Override
+	public void onStart(ISuite suite) {
+	}
+
+	@Override
+	public void onFinish(ISuite suite) {
+		if (!PerformanceBudgets.ENABLED) {
+			return;
+		}
+		PerformanceBudgets budgets = PerformanceBudgets.get();
+		Map<String, List<Long>> run = budgets.getRun();
+		if (run.isEmpty()) {
+			return;
+		}
+		File dir = new File(new File(suite.getOutputDirectory()).getParentFile(), "metrics");
+		File history = PerformanceBudgets.getHistoryFile();
+		try {
+			budgets.export(dir);
+			budgets.getHistory().append(run, Integer.getInteger("budget.history.runs", 20)).write(history);
+		} catch (IOException e) {
+			throw new RuntimeException("Unable to write the budget report to " + dir + " or history to " + history, e);
+		}
+		System.out.println("[PerformanceBudgets] " + run.size() + " steps timed, " + budgets.getViolations()
+				+ " budgets breached or regressions, see " + new File(dir, "budget-report.csv"));
+	}
+}
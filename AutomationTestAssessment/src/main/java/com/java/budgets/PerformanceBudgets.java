@@ -0,0 +1,412 @@
+package com.java.budgets;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency budgets of named steps (a page flow, a whole test...). A step is
+ * timed with start and stop:
+ *
+ * <pre>
+ * PerformanceBudgets.Timer budget = PerformanceBudgets.start("KataPage.search", 10, TimeUnit.SECONDS);
+ * ...
+ * budget.stop();
+ * </pre>
+ *
+ * and is checked when it stops:
+ * <ul>
+ * <li>against its budget, overridden with -Dbudget.&lt;step&gt;.ms;
+ * <li>against its baseline, the durations of the step in the last runs with
+ * the same settings (see BudgetHistory): the step regressed when it took more than both
+ * budget.regression.ratio (1.5) times the baseline median and the median plus
+ * budget.regression.mads (3) median absolute deviations. Only checked once the
+ * baseline has budget.baseline.min.samples (10) durations.
+ * </ul>
+ * A breached budget fails the step with an AssertionError, a regression is
+ * only reported; -Dbudget.breach and -Dbudget.regression set either to fail or
+ * warn. A failed step is not timed, stop is only called when it succeeded.
+ * <p>
+ * The durations of the run are added to the history by
+ * PerformanceBudgetListener when the suite finishes. Disabled with
+ * budget.enabled=false.
+ */
+public final class PerformanceBudgets {
+
+	public static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("budget.enabled"));
+
+	/**
+	 * What a failed check does.
+	 */
+	public enum Mode {
+		FAIL, WARN;
+
+		static Mode of(String property, Mode defaultMode) {
+			String value = System.getProperty(property);
+			return value == null ? defaultMode : valueOf(value.trim().toUpperCase(Locale.ROOT));
+		}
+	}
+
+	// a step's durations kept per run, the latest ones
+	static final int MAX_SAMPLES_PER_RUN = 100;
+
+	// scales a median absolute deviation to a standard deviation for normal data
+	private static final double MAD_SCALE = 1.4826;
+
+	private static final Timer DISABLED = new Timer(null, null, 0, 0) {
+
+		@Override
+		public void stop() {
+		}
+	};
+
+	private static volatile PerformanceBudgets instance;
+
+	private final BudgetHistory history;
+	private final Mode breach;
+	private final Mode regression;
+	private final double regressionRatio;
+	private final double regressionMads;
+	private final int minBaselineSamples;
+
+	private final ConcurrentMap<String, Baseline> baselines = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, StepRun> run = new ConcurrentHashMap<>();
+
+	/**
+	 * @param history            the previous runs
+	 * @param breach             what a breached budget does
+	 * @param regression         what a regression does
+	 * @param regressionRatio    the minimum ratio to the baseline median of a
+	 *                           regression
+	 * @param regressionMads     the minimum number of median absolute deviations
+	 *                           above the baseline median of a regression
+	 * @param minBaselineSamples the durations needed to check regressions
+	 */
+	public PerformanceBudgets(BudgetHistory history, Mode breach, Mode regression, double regressionRatio,
+			double regressionMads, int minBaselineSamples) {
+		this.history = history;
+		this.breach = breach;
+		this.regression = regression;
+		this.regressionRatio = regressionRatio;
+		this.regressionMads = regressionMads;
+		this.minBaselineSamples = minBaselineSamples;
+	}
+
+	/**
+	 * @return the budgets of the run, set up from the system properties and the
+	 *         history file
+	 */
+	public static PerformanceBudgets get() {
+		PerformanceBudgets budgets = instance;
+		if (budgets == null) {
+			synchronized (PerformanceBudgets.class) {
+				budgets = instance;
+				if (budgets == null) {
+					budgets = new PerformanceBudgets(BudgetHistory.load(getHistoryFile(), getSettings()),
+							Mode.of("budget.breach", Mode.FAIL), Mode.of("budget.regression", Mode.WARN),
+							Double.parseDouble(System.getProperty("budget.regression.ratio", "1.5")),
+							Double.parseDouble(System.getProperty("budget.regression.mads", "3")),
+							Integer.getInteger("budget.baseline.min.samples", 10));
+					instance = budgets;
+				}
+			}
+		}
+		return budgets;
+	}
+
+	/**
+	 * The settings the durations of a run depend on, the history keeps the runs
+	 * of each apart: the browser profiles, the wait engine and the page
+	 * transitions.
+	 *
+	 * @return e.g. "browser.profile=fast wait.engine=polling page.transitions=sync"
+	 */
+	public static String getSettings() {
+		StringBuffer settings = new StringBuffer();
+		settings.append("browser.profile=").append(setting("browser.profile", "default"));
+		settings.append(" wait.engine=").append(setting("wait.engine", "polling"));
+		settings.append(" page.transitions=").append(setting("page.transitions", "sync"));
+		return settings.toString();
+	}
+
+	private static String setting(String property, String defaultValue) {
+		String value = System.getProperty(property);
+		return value == null || value.trim().isEmpty() ? defaultValue : value.trim().toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * @return the history file, -Dbudget.history
+	 */
+	public static File getHistoryFile() {
+		return new File(System.getProperty("budget.history", "test-output/budgets/budget-history.json"));
+	}
+
+	/**
+	 * Starts timing a step of the run's budgets.
+	 *
+	 * @param step   the step name, e.g. "KataPage.search"
+	 * @param budget the longest the step may take
+	 * @param unit
+	 * @return the timer to stop when the step succeeded
+	 */
+	public static Timer start(String step, long budget, TimeUnit unit) {
+		if (!ENABLED) {
+			return DISABLED;
+		}
+		return get().timer(step, budget, unit);
+	}
+
+	/**
+	 * Starts timing a step.
+	 *
+	 * @param step
+	 * @param budget
+	 * @param unit
+	 * @return the timer to stop when the step succeeded
+	 */
+	public Timer timer(String step, long budget, TimeUnit unit) {
+		long budgetMillis = Long.getLong("budget." + step + ".ms", unit.toMillis(budget));
+		return new Timer(this, step, budgetMillis, System.nanoTime());
+	}
+
+	/**
+	 * Records a duration of the step and checks it.
+	 *
+	 * @param step
+	 * @param budgetMillis
+	 * @param millis
+	 * @throws AssertionError if a check in fail mode failed
+	 */
+	public void record(String step, long budgetMillis, long millis) {
+		StepRun stepRun = run.computeIfAbsent(step, StepRun::new);
+		Baseline baseline = getBaseline(step);
+		boolean breached = millis > budgetMillis;
+		boolean regressed = baseline.getSamples() >= minBaselineSamples && millis > baseline.getThresholdMillis();
+		stepRun.record(budgetMillis, millis, breached, regressed);
+
+		StringBuffer failure = new StringBuffer();
+		StringBuffer warning = new StringBuffer();
+		if (breached) {
+			StringBuffer message = breach == Mode.FAIL ? failure : warning;
+			message.append("Step ").append(step).append(" took ").append(millis).append(" ms, over its budget of ");
+			message.append(budgetMillis).append(" ms.");
+		}
+		if (regressed) {
+			StringBuffer message = regression == Mode.FAIL ? failure : warning;
+			if (message.length() > 0) {
+				message.append(' ');
+			}
+			message.append("Step ").append(step).append(" took ").append(millis);
+			message.append(" ms, a regression against its baseline of ").append(baseline.getMedianMillis());
+			message.append(" ms (median of ").append(baseline.getSamples()).append(" durations, threshold ");
+			message.append(baseline.getThresholdMillis()).append(" ms).");
+		}
+		if (warning.length() > 0) {
+			System.err.println("[PerformanceBudgets] " + warning);
+		}
+		if (failure.length() > 0) {
+			throw new AssertionError(failure.toString());
+		}
+	}
+
+	/**
+	 * @param step
+	 * @return the baseline of the step from the history
+	 */
+	public Baseline getBaseline(String step) {
+		return baselines.computeIfAbsent(step, name -> new Baseline(history.getSamples(name), regressionRatio,
+				regressionMads));
+	}
+
+	/**
+	 * @return the durations of this run by step, the latest
+	 *         MAX_SAMPLES_PER_RUN of each
+	 */
+	public Map<String, List<Long>> getRun() {
+		Map<String, List<Long>> durations = new TreeMap<>();
+		for (StepRun stepRun : run.values()) {
+			List<Long> millis = stepRun.getMillis();
+			durations.put(stepRun.step, millis.subList(Math.max(0, millis.size() - MAX_SAMPLES_PER_RUN),
+					millis.size()));
+		}
+		return durations;
+	}
+
+	/**
+	 * @return the history of the previous runs, without this one
+	 */
+	public BudgetHistory getHistory() {
+		return history;
+	}
+
+	/**
+	 * Writes budget-report.csv to the directory passed: per step, its durations
+	 * in this run against its budget and baseline.
+	 *
+	 * @param dir
+	 * @throws IOException
+	 */
+	public void export(File dir) throws IOException {
+		dir.mkdirs();
+		List<StepRun> steps = new ArrayList<>(run.values());
+		steps.sort((a, b) -> a.step.compareTo(b.step));
+		try (PrintWriter out = new PrintWriter(new File(dir, "budget-report.csv"), StandardCharsets.UTF_8.name())) {
+			out.println("step,count,budgetMs,medianMs,maxMs,baselineMs,thresholdMs,breaches,regressions");
+			for (StepRun stepRun : steps) {
+				Map<String, Object> row = stepRun.toMap(getBaseline(stepRun.step), minBaselineSamples);
+				StringBuilder line = new StringBuilder();
+				for (Object value : row.values()) {
+					if (line.length() > 0) {
+						line.append(',');
+					}
+					line.append(value);
+				}
+				out.println(line);
+			}
+		}
+	}
+
+	/**
+	 * @return the number of breached budgets and regressions in this run
+	 */
+	public int getViolations() {
+		int violations = 0;
+		for (StepRun stepRun : run.values()) {
+			violations += stepRun.getViolations();
+		}
+		return violations;
+	}
+
+	static long median(List<Long> values) {
+		List<Long> sorted = new ArrayList<>(values);
+		Collections.sort(sorted);
+		int middle = sorted.size() / 2;
+		return sorted.size() % 2 == 1 ? sorted.get(middle) : (sorted.get(middle - 1) + sorted.get(middle)) / 2;
+	}
+
+	/**
+	 * Times one step.
+	 */
+	public static class Timer {
+
+		private final PerformanceBudgets budgets;
+		private final String step;
+		private final long budgetMillis;
+		private final long startNanos;
+
+		Timer(PerformanceBudgets budgets, String step, long budgetMillis, long startNanos) {
+			this.budgets = budgets;
+			this.step = step;
+			this.budgetMillis = budgetMillis;
+			this.startNanos = startNanos;
+		}
+
+		/**
+		 * Records the step and checks it.
+		 *
+		 * @throws AssertionError if the step breached its budget or regressed, in
+		 *                        fail mode
+		 */
+		public void stop() {
+			budgets.record(step, budgetMillis, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+		}
+	}
+
+	/**
+	 * The durations of a step in the previous runs.
+	 */
+	public static class Baseline {
+
+		private final int samples;
+		private final long medianMillis;
+		private final long thresholdMillis;
+
+		Baseline(List<Long> millis, double ratio, double mads) {
+			samples = millis.size();
+			if (samples == 0) {
+				medianMillis = 0;
+				thresholdMillis = Long.MAX_VALUE;
+				return;
+			}
+			medianMillis = median(millis);
+			List<Long> deviations = new ArrayList<>();
+			for (long value : millis) {
+				deviations.add(Math.abs(value - medianMillis));
+			}
+			long spread = Math.round(medianMillis + mads * MAD_SCALE * median(deviations));
+			thresholdMillis = Math.max(Math.round(medianMillis * ratio), spread);
+		}
+
+		/**
+		 * @return the number of durations of the baseline
+		 */
+		public int getSamples() {
+			return samples;
+		}
+
+		public long getMedianMillis() {
+			return medianMillis;
+		}
+
+		/**
+		 * @return the duration above which the step regressed
+		 */
+		public long getThresholdMillis() {
+			return thresholdMillis;
+		}
+	}
+
+	private static class StepRun {
+
+		private final String step;
+		private final List<Long> millis = new ArrayList<>();
+		private long budgetMillis;
+		private int breaches;
+		private int regressions;
+
+		StepRun(String step) {
+			this.step = step;
+		}
+
+		synchronized void record(long budget, long duration, boolean breached, boolean regressed) {
+			budgetMillis = budget;
+			millis.add(duration);
+			breaches += breached ? 1 : 0;
+			regressions += regressed ? 1 : 0;
+		}
+
+		synchronized List<Long> getMillis() {
+			return new ArrayList<>(millis);
+		}
+
+		synchronized int getViolations() {
+			return breaches + regressions;
+		}
+
+		synchronized Map<String, Object> toMap(Baseline baseline, int minBaselineSamples) {
+			Map<String, Object> map = new LinkedHashMap<>();
+			map.put("step", step);
+			map.put("count", millis.size());
+			map.put("budgetMs", budgetMillis);
+			map.put("medianMs", median(millis));
+			map.put("maxMs", Collections.max(millis));
+			boolean checked = baseline.getSamples() >= minBaselineSamples;
+			map.put("baselineMs", checked ? String.valueOf(baseline.getMedianMillis()) : "");
+			map.put("thresholdMs", checked ? String.valueOf(baseline.getThresholdMillis()) : "");
+			map.put("breaches", breaches);
+			map.put("regressions", regressions);
+			return map;
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package com.java.driver;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+
+/**
+ * The disk caches of the browsers started with the shared-cache profile. Chrome
+ * keeps its HTTP cache in the directory passed with --disk-cache-dir, and
+ * caches and revalidates the scripts, style sheets and fonts itself, HTTPS
+ * included, evicting the least recently used entries above the size limit.
+ * <p>
+ * A cache directory can only be used by one browser at a time, so the caches
+ * are slots under browser.cache.dir: a new browser leases the first slot no
+ * other live browser, of this JVM or another one, holds. The slots outlive the
+ * browsers and the runs, so the next browser starts with a warm cache.
+ */
+public final class BrowserCache implements AutoCloseable {
+
+	/**
+	 * The directory of the cache slots.
+	 */
+	public static final File DIR = new File(System.getProperty("browser.cache.dir",
+			System.getProperty("java.io.tmpdir") + File.separator + "portal-browser-cache"));
+
+	/**
+	 * The size limit of each slot, in MB.
+	 */
+	public static final long MAX_MB = Long.getLong("browser.cache.max.mb", 512);
+
+	private final File dir;
+	private final FileChannel channel;
+	private final FileLock lock;
+
+	private BrowserCache(File dir, FileChannel channel, FileLock lock) {
+		this.dir = dir;
+		this.channel = channel;
+		this.lock = lock;
+	}
+
+	/**
+	 * Leases the first free slot of the directory passed.
+	 * 
+	 * @param parent the directory of the slots
+	 * @return the lease, to close once the browser has quit
+	 * @throws IOException if the directory can't be written
+	 */
+	public static BrowserCache lease(File parent) throws IOException {
+		if (!parent.isDirectory() && !parent.mkdirs()) {
+			throw new IOException("Unable to create the browser cache directory " + parent);
+		}
+		for (int slot = 0;; slot++) {
+			File dir = new File(parent, "slot-" + slot);
+			FileChannel channel = new RandomAccessFile(new File(parent, "slot-" + slot + ".lock"), "rw").getChannel();
+			FileLock lock = null;
+			try {
+				lock = channel.tryLock();
+			} catch (OverlappingFileLockException e) {
+				;// held by another browser of this JVM
+			}
+			if (lock != null) {
+				return new BrowserCache(dir, channel, lock);
+			}
+			channel.close();
+		}
+	}
+
+	/**
+	 * @return the cache directory of the browser
+	 */
+	public File getDir() {
+		return dir;
+	}
+
+	/**
+	 * Gives the slot back for the next browser.
+	 */
+	@Override
+	public void close() {
+		try {
+			lock.release();
+			channel.close();
+		} catch (IOException e) {
+			;// the lock goes with the channel
+		}
+	}
+}
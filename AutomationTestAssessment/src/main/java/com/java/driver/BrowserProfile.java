@@ -0,0 +1,133 @@
+package com.java.driver;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.openqa.selenium.PageLoadStrategy;
+import org.openqa.selenium.chrome.ChromeOptions;
+
+/**
+ * Named settings of the Chrome sessions started by DriverFactory. Profiles are
+ * combined with <code>-Dbrowser.profile=headless,eager,...</code>;
+ * <code>fast</code> stands for all the lightweight ones.
+ */
+public enum BrowserProfile {
+
+	/** A maximized headed window, the settings the suite always had. */
+	DEFAULT("default") {
+		@Override
+		void apply(ChromeOptions options) {
+			options.addArguments("--start-maximized");
+		}
+	},
+
+	/** No window, with a fixed viewport since headless Chrome can't maximize. */
+	HEADLESS("headless") {
+		@Override
+		void apply(ChromeOptions options) {
+			options.setHeadless(true);
+			options.addArguments("--window-size=" + WINDOW_SIZE);
+		}
+	},
+
+	/** Doesn't download or decode images. */
+	NO_IMAGES("no-images") {
+		@Override
+		void apply(ChromeOptions options) {
+			Map<String, Object> prefs = new HashMap<>();
+			prefs.put("profile.managed_default_content_settings.images", 2);
+			options.setExperimentalOption("prefs", prefs);
+			options.addArguments("--blink-settings=imagesEnabled=false");
+		}
+	},
+
+	/** No extensions, GPU, first-run or background work. */
+	LIGHTWEIGHT("lightweight") {
+		@Override
+		void apply(ChromeOptions options) {
+			options.addArguments("--disable-extensions", "--disable-gpu", "--no-first-run",
+					"--disable-background-networking", "--disable-default-apps", "--disable-sync",
+					"--disable-dev-shm-usage");
+		}
+	},
+
+	/** A fixed small window instead of a maximized one. */
+	SMALL_VIEWPORT("small-viewport") {
+		@Override
+		void apply(ChromeOptions options) {
+			options.addArguments("--window-size=" + WINDOW_SIZE);
+		}
+	},
+
+	/**
+	 * Commands return once the DOM is ready instead of waiting for every
+	 * resource; the page readiness checks wait for the elements used.
+	 */
+	EAGER("eager") {
+		@Override
+		void apply(ChromeOptions options) {
+			options.setPageLoadStrategy(PageLoadStrategy.EAGER);
+		}
+	},
+
+	/**
+	 * Keeps the HTTP cache in a directory shared with the next browsers and runs
+	 * (see BrowserCache), DriverFactory passes the directory leased.
+	 */
+	SHARED_CACHE("shared-cache") {
+		@Override
+		void apply(ChromeOptions options) {
+			options.addArguments("--disk-cache-size=" + BrowserCache.MAX_MB * 1024 * 1024);
+		}
+	};
+
+	/** The profiles <code>fast</code> stands for. */
+	static final BrowserProfile[] FAST = { HEADLESS, NO_IMAGES, LIGHTWEIGHT, EAGER };
+
+	static final String WINDOW_SIZE = System.getProperty("browser.window.size", "1280,800");
+
+	private static final Map<String, BrowserProfile> BY_NAME;
+
+	static {
+		Map<String, BrowserProfile> byName = new HashMap<>();
+		for (BrowserProfile profile : values()) {
+			byName.put(profile.name, profile);
+		}
+		BY_NAME = Collections.unmodifiableMap(byName);
+	}
+
+	private final String name;
+
+	BrowserProfile(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * @return the name used in the browser.profile property
+	 */
+	public String getName() {
+		return name;
+	}
+
+	abstract void apply(ChromeOptions options);
+
+	/**
+	 * @param name
+	 * @return the profile with the name
+	 * @throws IllegalArgumentException if there is no such profile
+	 */
+	public static BrowserProfile forName(String name) {
+		BrowserProfile profile = BY_NAME.get(name);
+		if (profile == null) {
+			StringBuffer error = new StringBuffer();
+			error.append("Unknown browser profile '");
+			error.append(name);
+			error.append("', expected one of ");
+			error.append(BY_NAME.keySet());
+			error.append(" or fast.");
+			throw new IllegalArgumentException(error.toString());
+		}
+		return profile;
+	}
+}
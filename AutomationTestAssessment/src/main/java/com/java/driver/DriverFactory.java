@@ -0,0 +1,137 @@
+package com.java.driver;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+
+/**
+ * Starts the Chrome sessions of the suite with the profiles set by
+ * <code>-Dbrowser.profile</code> (default: <code>default</code>), e.g.
+ * <code>-Dbrowser.profile=fast</code> for headless runs on the build agents.
+ * See BrowserProfile for the available profiles.
+ */
+public final class DriverFactory {
+
+	private static final String CHROME_DRIVER_PROPERTY = "webdriver.chrome.driver";
+
+	private DriverFactory() {
+	}
+
+	/**
+	 * Starts Chrome with the profiles of the suite.
+	 * 
+	 * @return WebDriver
+	 */
+	public static WebDriver createDriver() {
+		return createDriver(profiles(System.getProperty("browser.profile", BrowserProfile.DEFAULT.getName())));
+	}
+
+	/**
+	 * Starts Chrome with the profiles passed.
+	 * 
+	 * @param profiles
+	 * @return WebDriver
+	 */
+	public static WebDriver createDriver(Set<BrowserProfile> profiles) {
+		setChromeDriverProperty();
+		ChromeOptions options = chromeOptions(profiles);
+		if (!profiles.contains(BrowserProfile.SHARED_CACHE)) {
+			return new ChromeDriver(options);
+		}
+
+		BrowserCache cache;
+		try {
+			cache = BrowserCache.lease(BrowserCache.DIR);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		options.addArguments("--disk-cache-dir=" + cache.getDir().getAbsolutePath());
+		try {
+			return new ChromeDriver(options) {
+
+				@Override
+				public void quit() {
+					try {
+						super.quit();
+					} finally {
+						cache.close();
+					}
+				}
+			};
+		} catch (RuntimeException e) {
+			cache.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @param profiles
+	 * @return the Chrome options of the profiles
+	 */
+	public static ChromeOptions chromeOptions(Set<BrowserProfile> profiles) {
+		ChromeOptions options = new ChromeOptions();
+		for (BrowserProfile profile : profiles) {
+			// a maximized window would override the viewport of the other profiles
+			if (profile != BrowserProfile.DEFAULT || profiles.size() == 1) {
+				profile.apply(options);
+			}
+		}
+		return options;
+	}
+
+	/**
+	 * Parses a comma separated list of profile names.
+	 * 
+	 * @param names
+	 * @return the profiles
+	 */
+	public static Set<BrowserProfile> profiles(String names) {
+		Set<BrowserProfile> profiles = EnumSet.noneOf(BrowserProfile.class);
+		for (String name : StringUtils.split(names, ", ")) {
+			if (name.equalsIgnoreCase("fast")) {
+				profiles.addAll(Arrays.asList(BrowserProfile.FAST));
+			} else {
+				profiles.add(BrowserProfile.forName(name.toLowerCase()));
+			}
+		}
+		if (profiles.isEmpty()) {
+			profiles.add(BrowserProfile.DEFAULT);
+		}
+		return profiles;
+	}
+
+	/**
+	 * Points webdriver.chrome.driver at the chromedriver for this system, unless
+	 * it is already set. The project contains chrome drivers for windows and mac;
+	 * on linux a chromedriver_linux in the project is used, otherwise the one on
+	 * the PATH. The property is global, so it is only set once even when methods
+	 * start in parallel.
+	 */
+	private static synchronized void setChromeDriverProperty() {
+		if (System.getProperty(CHROME_DRIVER_PROPERTY) != null) {
+			return;
+		}
+		String os = System.getProperty("os.name");
+
+		String driverName;
+		if (StringUtils.containsIgnoreCase(os, "mac")) {
+			driverName = "chromedriver_mac";
+		} else if (StringUtils.containsIgnoreCase(os, "windows")) {
+			driverName = "chromedriver.exe";
+		} else {
+			driverName = "chromedriver_linux";
+		}
+		File driver = new File(System.getProperty("user.dir"), driverName);
+		if (driver.isFile()) {
+			System.setProperty(CHROME_DRIVER_PROPERTY, driver.getAbsolutePath());
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package com.java.driver;
+
+import org.openqa.selenium.WebDriver;
+
+import com.java.abstractclass.AbstractPortalPage;
+import com.java.metrics.ActionMetrics;
+import com.java.metrics.WireCommands;
+
+/**
+ * Holds the WebDriver session of the current test thread. Every TestNG worker
+ * thread owns its own browser, so tests and page objects never share a session
+ * when the suite runs with parallel="methods".
+ */
+public final class DriverManager {
+
+	private static final ThreadLocal<WebDriver> DRIVER = new ThreadLocal<>();
+
+	private DriverManager() {
+	}
+
+	/**
+	 * Returns the driver bound to the current thread.
+	 * 
+	 * @return WebDriver
+	 */
+	public static WebDriver getDriver() {
+		WebDriver driver = DRIVER.get();
+		if (driver == null) {
+			StringBuffer error = new StringBuffer();
+			error.append("No WebDriver is bound to thread ");
+			error.append(Thread.currentThread().getName());
+			error.append(". Call DriverManager.setDriver() before using page objects.");
+			throw new IllegalStateException(error.toString());
+		}
+		return driver;
+	}
+
+	/**
+	 * Binds the driver passed to the current thread. When action metrics are
+	 * enabled the driver is instrumented to count the commands it sends.
+	 * 
+	 * @param driver
+	 */
+	public static void setDriver(WebDriver driver) {
+		if (driver != null && ActionMetrics.ENABLED) {
+			driver = WireCommands.instrument(driver);
+		}
+		DRIVER.set(driver);
+	}
+
+	/**
+	 * Checks if a driver is bound to the current thread.
+	 * 
+	 * @return boolean
+	 */
+	public static boolean hasDriver() {
+		return DRIVER.get() != null;
+	}
+
+	/**
+	 * Quits the driver bound to the current thread and unbinds it. A page load
+	 * still checked in the background is awaited first and its error rethrown once
+	 * the driver has quit.
+	 */
+	public static void quitDriver() {
+		WebDriver driver = DRIVER.get();
+		DRIVER.remove();
+		if (driver != null) {
+			try {
+				AbstractPortalPage.awaitPageLoads(driver);
+			} finally {
+				driver.quit();
+			}
+		}
+	}
+}
@@ -0,0 +1,262 @@
+package com.java.driver.replay;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.interactions.Sequence;
+
+/**
+ * Converts the arguments and results of WebDriver commands to and from the
+ * JSON values stored in a recording. Elements and other driver objects are
+ * stored as references to the id they were given when recorded:
+ * <code>{"@el": id}</code> for elements, <code>{"@ref": id}</code> for
+ * navigation, options and the like.
+ */
+final class RecordingCodec {
+
+	static final String ELEMENT = "@el";
+	static final String REFERENCE = "@ref";
+	static final String SET = "@set";
+	static final String COOKIE = "@cookie";
+	static final String DIMENSION = "@dim";
+	static final String POINT = "@point";
+	static final String RECTANGLE = "@rect";
+	static final String SCREENSHOT = "@png";
+
+	/**
+	 * Gives the recording id of the driver objects passed as arguments.
+	 */
+	interface Ids {
+
+		/**
+		 * @param proxy
+		 * @return the id or -1 if the object isn't part of the recording
+		 */
+		int idOf(Object proxy);
+	}
+
+	/**
+	 * Creates the replay objects of the references found in a recording.
+	 */
+	interface References {
+
+		Object element(int id);
+
+		Object reference(int id, Class<?> type);
+	}
+
+	private RecordingCodec() {
+	}
+
+	static Object encode(Object value, Ids ids) {
+		if (value == null || value instanceof String || value instanceof Boolean || value instanceof Number) {
+			return value;
+		}
+		if (Proxy.isProxyClass(value.getClass())) {
+			return Collections.singletonMap(value instanceof WebElement ? ELEMENT : REFERENCE, ids.idOf(value));
+		}
+		if (value instanceof WebElement) {
+			return Collections.singletonMap(ELEMENT, ids.idOf(value));
+		}
+		if (value instanceof Enum) {
+			return ((Enum<?>) value).name();
+		}
+		if (value instanceof CharSequence || value instanceof By || value instanceof URL) {
+			return value.toString();
+		}
+		if (value instanceof Date) {
+			return ((Date) value).getTime();
+		}
+		if (value instanceof Sequence) {
+			return encode(((Sequence) value).encode(), ids);
+		}
+		if (value instanceof Cookie) {
+			Cookie cookie = (Cookie) value;
+			Map<String, Object> map = new LinkedHashMap<>();
+			map.put("name", cookie.getName());
+			map.put("value", cookie.getValue());
+			map.put("domain", cookie.getDomain());
+			map.put("path", cookie.getPath());
+			map.put("expiry", cookie.getExpiry() == null ? null : cookie.getExpiry().getTime());
+			map.put("secure", cookie.isSecure());
+			map.put("httpOnly", cookie.isHttpOnly());
+			return Collections.singletonMap(COOKIE, map);
+		}
+		if (value instanceof Dimension) {
+			Dimension d = (Dimension) value;
+			return Collections.singletonMap(DIMENSION, list(d.getWidth(), d.getHeight()));
+		}
+		if (value instanceof Point) {
+			Point p = (Point) value;
+			return Collections.singletonMap(POINT, list(p.getX(), p.getY()));
+		}
+		if (value instanceof Rectangle) {
+			Rectangle r = (Rectangle) value;
+			return Collections.singletonMap(RECTANGLE, list(r.getX(), r.getY(), r.getHeight(), r.getWidth()));
+		}
+		if (value.getClass().isArray()) {
+			List<Object> list = new ArrayList<>();
+			for (int i = 0; i < Array.getLength(value); i++) {
+				list.add(encode(Array.get(value, i), ids));
+			}
+			return list;
+		}
+		if (value instanceof Set) {
+			return Collections.singletonMap(SET, encode(new ArrayList<>((Set<?>) value), ids));
+		}
+		if (value instanceof Collection) {
+			List<Object> list = new ArrayList<>();
+			for (Object item : (Collection<?>) value) {
+				list.add(encode(item, ids));
+			}
+			return list;
+		}
+		if (value instanceof Map) {
+			Map<String, Object> map = new LinkedHashMap<>();
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				map.put(String.valueOf(entry.getKey()), encode(entry.getValue(), ids));
+			}
+			return map;
+		}
+		return String.valueOf(value);
+	}
+
+	static Object decode(Object value, Class<?> type, References references) {
+		if (value instanceof Map) {
+			Map<?, ?> map = (Map<?, ?>) value;
+			if (map.size() == 1) {
+				Object tag = map.keySet().iterator().next();
+				Object content = map.get(tag);
+				if (ELEMENT.equals(tag)) {
+					return references.element(((Number) content).intValue());
+				}
+				if (REFERENCE.equals(tag)) {
+					return references.reference(((Number) content).intValue(), type);
+				}
+				if (SET.equals(tag)) {
+					Set<Object> set = new LinkedHashSet<>();
+					for (Object item : (List<?>) content) {
+						set.add(decode(item, Object.class, references));
+					}
+					return set;
+				}
+				if (COOKIE.equals(tag)) {
+					Map<?, ?> c = (Map<?, ?>) content;
+					Object expiry = c.get("expiry");
+					return new Cookie((String) c.get("name"), (String) c.get("value"), (String) c.get("domain"),
+							(String) c.get("path"), expiry == null ? null : new Date(((Number) expiry).longValue()),
+							Boolean.TRUE.equals(c.get("secure")), Boolean.TRUE.equals(c.get("httpOnly")));
+				}
+				if (DIMENSION.equals(tag)) {
+					List<?> d = (List<?>) content;
+					return new Dimension(intAt(d, 0), intAt(d, 1));
+				}
+				if (POINT.equals(tag)) {
+					List<?> p = (List<?>) content;
+					return new Point(intAt(p, 0), intAt(p, 1));
+				}
+				if (RECTANGLE.equals(tag)) {
+					List<?> r = (List<?>) content;
+					return new Rectangle(intAt(r, 0), intAt(r, 1), intAt(r, 2), intAt(r, 3));
+				}
+			}
+			Map<String, Object> decoded = new LinkedHashMap<>();
+			for (Map.Entry<?, ?> entry : map.entrySet()) {
+				decoded.put(String.valueOf(entry.getKey()), decode(entry.getValue(), Object.class, references));
+			}
+			return decoded;
+		}
+		if (value instanceof List) {
+			List<Object> decoded = new ArrayList<>();
+			for (Object item : (List<?>) value) {
+				decoded.add(decode(item, Object.class, references));
+			}
+			return decoded;
+		}
+		if (value instanceof Number) {
+			Number number = (Number) value;
+			if (type == int.class || type == Integer.class) {
+				return number.intValue();
+			}
+			if (type == long.class || type == Long.class) {
+				return number.longValue();
+			}
+			if (type == double.class || type == Double.class) {
+				return number.doubleValue();
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Writes an encoded value as compact JSON, one command per line.
+	 * 
+	 * @param value
+	 * @param out
+	 */
+	static void write(Object value, StringBuilder out) {
+		if (value == null || value instanceof Boolean || value instanceof Number) {
+			out.append(value);
+		} else if (value instanceof List) {
+			out.append('[');
+			String separator = "";
+			for (Object item : (List<?>) value) {
+				out.append(separator);
+				write(item, out);
+				separator = ",";
+			}
+			out.append(']');
+		} else if (value instanceof Map) {
+			out.append('{');
+			String separator = "";
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				out.append(separator);
+				write(String.valueOf(entry.getKey()), out);
+				out.append(':');
+				write(entry.getValue(), out);
+				separator = ",";
+			}
+			out.append('}');
+		} else {
+			String text = value.toString();
+			out.append('"');
+			for (int i = 0; i < text.length(); i++) {
+				char c = text.charAt(i);
+				if (c == '"' || c == '\\') {
+					out.append('\\').append(c);
+				} else if (c < 0x20) {
+					out.append(String.format("\\u%04x", (int) c));
+				} else {
+					out.append(c);
+				}
+			}
+			out.append('"');
+		}
+	}
+
+	private static List<Object> list(Object... values) {
+		List<Object> list = new ArrayList<>();
+		Collections.addAll(list, values);
+		return list;
+	}
+
+	private static int intAt(List<?> list, int index) {
+		return ((Number) list.get(index)).intValue();
+	}
+}
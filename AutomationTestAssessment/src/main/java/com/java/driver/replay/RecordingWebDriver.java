@@ -0,0 +1,318 @@
+package com.java.driver.replay;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.lang3.ClassUtils;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WrapsDriver;
+import org.openqa.selenium.WrapsElement;
+import org.openqa.selenium.support.ui.Sleeper;
+
+/**
+ * Records a WebDriver session so it can be replayed offline by
+ * {@link ReplayWebDriver}. Every command sent through the driver, its elements
+ * and its navigation and options objects is written with its arguments and its
+ * result (or exception) as one line of a gzipped JSON file.
+ * <p>
+ * The driver runs on a clock that only moves when a command ends or a wait
+ * sleeps (see {@link VirtualTime}); the time each command ended is recorded, so
+ * a replay gives its waits the same times and they poll the same number of
+ * times.
+ */
+public final class RecordingWebDriver {
+
+	static final int VERSION = 1;
+
+	// methods returning a helper object, recorded as a reference to it
+	static final Set<String> LOCAL_ACCESSORS = new HashSet<>(Arrays.asList("navigate", "manage", "switchTo",
+			"timeouts", "window", "logs", "ime", "getKeyboard", "getMouse", "getCoordinates", "getLocalStorage",
+			"getSessionStorage"));
+
+	private final Writer out;
+	private final AtomicInteger ids = new AtomicInteger();
+	// the id of the real objects, for the arguments already unwrapped by Selenium
+	private final Map<Object, Integer> targets = Collections.synchronizedMap(new IdentityHashMap<>());
+	private final Thread closeOnExit = new Thread(this::close);
+	private final long created = System.currentTimeMillis();
+	// the time the last command ended, and the time slept since
+	private final AtomicLong lastEnd = new AtomicLong(created);
+	private final AtomicLong slept = new AtomicLong();
+	private boolean closed;
+
+	private RecordingWebDriver(Writer out) {
+		this.out = out;
+	}
+
+	/**
+	 * Wraps the driver so the session is recorded to the file. The recording is
+	 * complete once the driver has been quit.
+	 * 
+	 * @param driver
+	 * @param file
+	 * @param seed
+	 *            the seed of the random data used by the session, given back on
+	 *            replay
+	 * @return the recording driver
+	 */
+	public static WebDriver wrap(WebDriver driver, File file, long seed) {
+		Writer out;
+		try {
+			file.getAbsoluteFile().getParentFile().mkdirs();
+			out = new BufferedWriter(
+					new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(file)), StandardCharsets.UTF_8));
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not create the recording " + file, e);
+		}
+		RecordingWebDriver recording = new RecordingWebDriver(out);
+		Runtime.getRuntime().addShutdownHook(recording.closeOnExit);
+
+		List<String> interfaces = new ArrayList<>();
+		for (Class<?> type : ClassUtils.getAllInterfaces(driver.getClass())) {
+			if (type != WrapsDriver.class) {
+				interfaces.add(type.getName());
+			}
+		}
+		Map<String, Object> header = new LinkedHashMap<>();
+		header.put("version", VERSION);
+		header.put("seed", seed);
+		header.put("created", recording.created);
+		header.put("interfaces", interfaces);
+		recording.write(header);
+
+		return (WebDriver) recording.proxy(driver, WrapsDriver.class, VirtualTime.class);
+	}
+
+	private Object proxy(Object target, Class<?>... extra) {
+		Set<Class<?>> interfaces = new LinkedHashSet<>(ClassUtils.getAllInterfaces(target.getClass()));
+		interfaces.addAll(Arrays.asList(extra));
+		int id = ids.getAndIncrement();
+		targets.put(target, id);
+		return Proxy.newProxyInstance(RecordingWebDriver.class.getClassLoader(),
+				interfaces.toArray(new Class<?>[interfaces.size()]), new RecordingHandler(target, id));
+	}
+
+	private Object wrapResult(Object result, boolean reference) {
+		if (reference) {
+			return proxy(result);
+		}
+		if (result instanceof WebElement) {
+			return proxy(result, WrapsElement.class);
+		}
+		if (result instanceof List) {
+			List<Object> wrapped = new ArrayList<>();
+			for (Object item : (List<?>) result) {
+				wrapped.add(wrapResult(item, false));
+			}
+			return wrapped;
+		}
+		if (result instanceof Map) {
+			Map<Object, Object> wrapped = new LinkedHashMap<>();
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) result).entrySet()) {
+				wrapped.put(entry.getKey(), wrapResult(entry.getValue(), false));
+			}
+			return wrapped;
+		}
+		return result;
+	}
+
+	/**
+	 * Marks the end of a command.
+	 * 
+	 * @return the time the command ended, in ms from the start of the recording
+	 */
+	private long commandEnded() {
+		long now = System.currentTimeMillis();
+		lastEnd.set(now);
+		slept.set(0);
+		return now - created;
+	}
+
+	private synchronized void write(Object line) {
+		if (closed) {
+			return;
+		}
+		StringBuilder json = new StringBuilder();
+		RecordingCodec.write(line, json);
+		try {
+			out.write(json.append('\n').toString());
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not write the recording", e);
+		}
+	}
+
+	private synchronized void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			out.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not close the recording", e);
+		}
+		if (Thread.currentThread() != closeOnExit) {
+			Runtime.getRuntime().removeShutdownHook(closeOnExit);
+		}
+	}
+
+	private static RecordingHandler handlerOf(Object value) {
+		while (value != null) {
+			if (Proxy.isProxyClass(value.getClass()) && Proxy.getInvocationHandler(value) instanceof RecordingHandler) {
+				return (RecordingHandler) Proxy.getInvocationHandler(value);
+			}
+			value = value instanceof WrapsElement ? ((WrapsElement) value).getWrappedElement() : null;
+		}
+		return null;
+	}
+
+	private static Object unwrap(Object value) {
+		RecordingHandler handler = handlerOf(value);
+		if (handler != null) {
+			return handler.target;
+		}
+		if (value instanceof List) {
+			List<Object> unwrapped = new ArrayList<>();
+			for (Object item : (List<?>) value) {
+				unwrapped.add(unwrap(item));
+			}
+			return unwrapped;
+		}
+		return value;
+	}
+
+	private class RecordingHandler implements InvocationHandler {
+
+		private final Object target;
+		private final int id;
+
+		RecordingHandler(Object target, int id) {
+			this.target = target;
+			this.id = id;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			if (method.getDeclaringClass() == Object.class) {
+				if (name.equals("equals")) {
+					return target.equals(unwrap(args[0]));
+				}
+				return method.invoke(target, args);
+			}
+			if (name.equals("getWrappedElement") || name.equals("getWrappedDriver")) {
+				return target;
+			}
+			if (method.getDeclaringClass() == VirtualTime.class) {
+				if (name.equals("getClock")) {
+					return new RecordingClock();
+				}
+				return (Sleeper) duration -> {
+					Sleeper.SYSTEM_SLEEPER.sleep(duration);
+					slept.addAndGet(duration.toMillis());
+				};
+			}
+
+			Object[] realArgs = args == null ? null : new Object[args.length];
+			for (int i = 0; realArgs != null && i < args.length; i++) {
+				realArgs[i] = unwrap(args[i]);
+			}
+			boolean screenshot = name.equals("getScreenshotAs");
+
+			Map<String, Object> line = new LinkedHashMap<>();
+			line.put("t", id);
+			line.put("m", name);
+			line.put("a", RecordingCodec.encode(args == null ? new Object[0] : args, ids()));
+
+			Object result;
+			try {
+				result = screenshot ? method.invoke(target, OutputType.BASE64) : method.invoke(target, realArgs);
+			} catch (InvocationTargetException e) {
+				Throwable cause = e.getCause();
+				line.put("x", cause.getClass().getName());
+				line.put("msg", cause.getMessage());
+				line.put("ms", commandEnded());
+				write(line);
+				throw cause;
+			}
+
+			line.put("ms", commandEnded());
+			if (screenshot) {
+				line.put("r", Collections.singletonMap(RecordingCodec.SCREENSHOT, result));
+				write(line);
+				return ((OutputType<?>) args[0]).convertFromBase64Png((String) result);
+			}
+			boolean reference = LOCAL_ACCESSORS.contains(name) && result != null
+					&& method.getReturnType().isInterface();
+			// builders such as Timeouts return themselves
+			Object wrapped = result == target ? proxy : wrapResult(result, reference);
+			line.put("r", RecordingCodec.encode(wrapped, ids()));
+			write(line);
+			if (name.equals("quit")) {
+				close();
+			}
+			return wrapped;
+		}
+	}
+
+	/**
+	 * The time the last command ended plus the time slept since.
+	 */
+	private class RecordingClock extends Clock {
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return Instant.ofEpochMilli(lastEnd.get() + slept.get());
+		}
+	}
+
+	private RecordingCodec.Ids ids() {
+		return value -> {
+			RecordingHandler handler = handlerOf(value);
+			if (handler != null) {
+				return handler.id;
+			}
+			Integer id = targets.get(value);
+			return id == null ? -1 : id;
+		};
+	}
+}
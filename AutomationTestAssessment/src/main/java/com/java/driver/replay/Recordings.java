@@ -0,0 +1,71 @@
+package com.java.driver.replay;
+
+import java.io.File;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import org.openqa.selenium.WebDriver;
+
+/**
+ * Starts the WebDriver session of a test according to the recording mode:
+ * <ul>
+ * <li><code>-Dwebdriver.record.dir=dir</code> records each session with a
+ * real browser into <code>dir/&lt;name&gt;.jsonl.gz</code></li>
+ * <li><code>-Dwebdriver.replay.dir=dir</code> replays the recorded sessions
+ * without starting a browser</li>
+ * </ul>
+ * Tests using random data must take it from {@link #random()} so the replayed
+ * session sends the same data as the recorded one.
+ */
+public final class Recordings {
+
+	private static final String RECORD_DIR = System.getProperty("webdriver.record.dir");
+	private static final String REPLAY_DIR = System.getProperty("webdriver.replay.dir");
+	private static final String EXTENSION = ".jsonl.gz";
+
+	private static final ThreadLocal<Random> RANDOM = ThreadLocal.withInitial(Random::new);
+
+	private Recordings() {
+	}
+
+	/**
+	 * Starts the session of the current thread.
+	 * 
+	 * @param name
+	 *            the name of the recording, e.g. the test method
+	 * @param browser
+	 *            starts the real browser, not called on replay
+	 * @return the driver to use
+	 */
+	public static WebDriver startSession(String name, Supplier<WebDriver> browser) {
+		if (REPLAY_DIR != null) {
+			WebDriver driver = ReplayWebDriver.open(new File(REPLAY_DIR, name + EXTENSION));
+			RANDOM.set(new Random(ReplayWebDriver.seedOf(driver)));
+			return driver;
+		}
+		if (RECORD_DIR != null) {
+			long seed = System.nanoTime();
+			RANDOM.set(new Random(seed));
+			return RecordingWebDriver.wrap(browser.get(), new File(RECORD_DIR, name + EXTENSION), seed);
+		}
+		RANDOM.set(new Random());
+		return browser.get();
+	}
+
+	/**
+	 * Checks if sessions are recorded or replayed. Shortcuts depending on
+	 * state outside of the session (e.g. a saved login) must then be skipped.
+	 * 
+	 * @return boolean
+	 */
+	public static boolean isActive() {
+		return RECORD_DIR != null || REPLAY_DIR != null;
+	}
+
+	/**
+	 * @return the random generator of the current session
+	 */
+	public static Random random() {
+		return RANDOM.get();
+	}
+}
@@ -0,0 +1,17 @@
+package com.java.driver.replay;
+
+import org.openqa.selenium.WebDriverException;
+
+/**
+ * Thrown when a replayed session issues a command that differs from the
+ * recorded one, i.e. the code under test no longer behaves as it did when the
+ * session was recorded.
+ */
+public class ReplayMismatchException extends WebDriverException {
+
+	private static final long serialVersionUID = 1L;
+
+	public ReplayMismatchException(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,277 @@
+package com.java.driver.replay;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WrapsElement;
+import org.openqa.selenium.interactions.Locatable;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.support.ui.Sleeper;
+
+/**
+ * Replays a session recorded by {@link RecordingWebDriver} without a browser.
+ * Each command is answered with the recorded result, in the recorded order. By
+ * default the arguments must match the recorded ones too; set
+ * <code>-Dwebdriver.replay.strict=false</code> to only check the command names.
+ * <p>
+ * The driver runs on a virtual clock (see {@link VirtualTime}) set to the time
+ * each command ended in the recording and moved by the sleeps of the waits, so
+ * the waits poll as many times as when recorded, without sleeping.
+ */
+public final class ReplayWebDriver {
+
+	private static final boolean STRICT = Boolean
+			.parseBoolean(System.getProperty("webdriver.replay.strict", "true"));
+
+	private static final Json JSON = new Json();
+
+	private final File file;
+	private final List<Map<String, Object>> commands;
+	private final Map<Integer, Object> references = new HashMap<>();
+	private final AtomicLong now;
+	private final long seed;
+	private final long created;
+	private int next;
+
+	private ReplayWebDriver(File file, Map<String, Object> header, List<Map<String, Object>> commands) {
+		this.file = file;
+		this.commands = commands;
+		this.seed = ((Number) header.get("seed")).longValue();
+		this.created = ((Number) header.get("created")).longValue();
+		this.now = new AtomicLong(created);
+	}
+
+	/**
+	 * Reads the recording and creates the driver replaying it.
+	 * 
+	 * @param file
+	 * @return the replay driver
+	 */
+	public static WebDriver open(File file) {
+		List<Map<String, Object>> lines = new ArrayList<>();
+		try (BufferedReader in = new BufferedReader(
+				new InputStreamReader(new GZIPInputStream(new FileInputStream(file)), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = in.readLine()) != null) {
+				if (!line.isEmpty()) {
+					lines.add(JSON.toType(line, Json.MAP_TYPE));
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not read the recording " + file, e);
+		}
+		if (lines.isEmpty() || !Integer.valueOf(RecordingWebDriver.VERSION)
+				.equals(((Number) lines.get(0).get("version")).intValue())) {
+			throw new WebDriverException("Not a recording: " + file);
+		}
+		Map<String, Object> header = lines.remove(0);
+		ReplayWebDriver replay = new ReplayWebDriver(file, header, lines);
+
+		Set<Class<?>> interfaces = new LinkedHashSet<>();
+		interfaces.add(WebDriver.class);
+		for (Object name : (List<?>) header.get("interfaces")) {
+			try {
+				interfaces.add(Class.forName((String) name));
+			} catch (ClassNotFoundException e) {
+				// not available here, the recorded session didn't need it
+			}
+		}
+		interfaces.add(VirtualTime.class);
+		return (WebDriver) replay.proxy(0, interfaces);
+	}
+
+	/**
+	 * @param driver
+	 * @return the seed recorded with the session
+	 */
+	public static long seedOf(WebDriver driver) {
+		return ((ReplayHandler) Proxy.getInvocationHandler(driver)).replay().seed;
+	}
+
+	private Object proxy(int id, Set<Class<?>> interfaces) {
+		return Proxy.newProxyInstance(ReplayWebDriver.class.getClassLoader(),
+				interfaces.toArray(new Class<?>[interfaces.size()]), new ReplayHandler(id));
+	}
+
+	private RecordingCodec.References references() {
+		return new RecordingCodec.References() {
+
+			@Override
+			public Object element(int id) {
+				Set<Class<?>> interfaces = new LinkedHashSet<>();
+				interfaces.add(WebElement.class);
+				interfaces.add(Locatable.class);
+				interfaces.add(TakesScreenshot.class);
+				return references.computeIfAbsent(id, key -> proxy(key, interfaces));
+			}
+
+			@Override
+			public Object reference(int id, Class<?> type) {
+				Set<Class<?>> interfaces = new LinkedHashSet<>();
+				interfaces.add(type);
+				return references.computeIfAbsent(id, key -> proxy(key, interfaces));
+			}
+		};
+	}
+
+	private synchronized Object replay(int target, Method method, Object[] args) throws Throwable {
+		String name = method.getName();
+		String call = "command #" + (next + 1) + " of " + file.getName();
+		if (next >= commands.size()) {
+			throw new ReplayMismatchException("The recording has ended, got " + name + " after the last " + call);
+		}
+		Map<String, Object> command = commands.get(next);
+		if (!name.equals(command.get("m")) || target != ((Number) command.get("t")).intValue()) {
+			throw new ReplayMismatchException("Expected " + command.get("m") + " on #" + command.get("t") + " but got "
+					+ name + " on #" + target + " at " + call);
+		}
+		if (STRICT) {
+			Object actual = normalize(RecordingCodec.encode(args == null ? new Object[0] : args,
+					ReplayWebDriver::idOf));
+			Object expected = normalize(command.get("a"));
+			if (!actual.equals(expected)) {
+				throw new ReplayMismatchException(
+						"Expected " + name + " with " + expected + " but got " + actual + " at " + call);
+			}
+		}
+		next++;
+		if (command.get("ms") instanceof Number) {
+			now.set(created + ((Number) command.get("ms")).longValue());
+		}
+
+		if (command.containsKey("x")) {
+			throw exception((String) command.get("x"), (String) command.get("msg"));
+		}
+		Object result = command.get("r");
+		if (result instanceof Map && ((Map<?, ?>) result).containsKey(RecordingCodec.SCREENSHOT)) {
+			return ((OutputType<?>) args[0])
+					.convertFromBase64Png((String) ((Map<?, ?>) result).get(RecordingCodec.SCREENSHOT));
+		}
+		return RecordingCodec.decode(result, method.getReturnType(), references());
+	}
+
+	private static int idOf(Object value) {
+		while (value != null) {
+			if (Proxy.isProxyClass(value.getClass()) && Proxy.getInvocationHandler(value) instanceof ReplayHandler) {
+				return ((ReplayHandler) Proxy.getInvocationHandler(value)).id;
+			}
+			value = value instanceof WrapsElement ? ((WrapsElement) value).getWrappedElement() : null;
+		}
+		return -1;
+	}
+
+	private static Throwable exception(String type, String message) {
+		try {
+			Class<?> cls = Class.forName(type);
+			if (RuntimeException.class.isAssignableFrom(cls)) {
+				Constructor<?> constructor = cls.getConstructor(String.class);
+				return (Throwable) constructor.newInstance(message);
+			}
+		} catch (ReflectiveOperationException e) {
+			// no (String) constructor
+		}
+		return new WebDriverException(type + ": " + message);
+	}
+
+	// JSON gives back integral numbers as longs, whatever type they were written from
+	private static Object normalize(Object value) {
+		if (value instanceof Number) {
+			double d = ((Number) value).doubleValue();
+			return d == Math.rint(d) && !Double.isInfinite(d) ? (Object) (long) d : (Object) d;
+		}
+		if (value instanceof List) {
+			List<Object> list = new ArrayList<>();
+			for (Object item : (List<?>) value) {
+				list.add(normalize(item));
+			}
+			return list;
+		}
+		if (value instanceof Map) {
+			Map<String, Object> map = new LinkedHashMap<>();
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				map.put(String.valueOf(entry.getKey()), normalize(entry.getValue()));
+			}
+			return map;
+		}
+		return value;
+	}
+
+	private class ReplayHandler implements InvocationHandler {
+
+		private final int id;
+
+		ReplayHandler(int id) {
+			this.id = id;
+		}
+
+		ReplayWebDriver replay() {
+			return ReplayWebDriver.this;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			if (method.getDeclaringClass() == Object.class) {
+				if (name.equals("equals")) {
+					return proxy == args[0];
+				}
+				if (name.equals("hashCode")) {
+					return System.identityHashCode(proxy);
+				}
+				return "Replay of " + file.getName() + " #" + id;
+			}
+			if (method.getDeclaringClass() == VirtualTime.class) {
+				if (name.equals("getClock")) {
+					return new VirtualClock();
+				}
+				return (Sleeper) duration -> now.addAndGet(duration.toMillis());
+			}
+			return ReplayWebDriver.this.replay(id, method, args);
+		}
+	}
+
+	private class VirtualClock extends Clock {
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return Instant.ofEpochMilli(now.get());
+		}
+	}
+}
@@ -0,0 +1,22 @@
+package com.java.driver.replay;
+
+import java.time.Clock;
+
+import org.openqa.selenium.support.ui.Sleeper;
+
+/**
+ * Implemented by drivers that don't run in real time. Waits built for such a
+ * driver use its clock and sleeper, so polling loops don't actually sleep.
+ */
+public interface VirtualTime {
+
+	/**
+	 * @return the clock of the driver
+	 */
+	Clock getClock();
+
+	/**
+	 * @return a sleeper advancing the clock instead of sleeping
+	 */
+	Sleeper getSleeper();
+}
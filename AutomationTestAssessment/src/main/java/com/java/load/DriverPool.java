@@ -0,0 +1,84 @@
+package com.java.load;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import com.java.abstractclass.AbstractPortalPage;
+
+/**
+ * The browsers of the virtual users of a load run. A driver is created when
+ * no idle one is left, given back after each iteration and reused by the next
+ * one; a driver whose iteration failed is quit instead, as it may be in any
+ * state.
+ */
+class DriverPool implements AutoCloseable {
+
+	private final Supplier<WebDriver> factory;
+	private final ConcurrentLinkedQueue<WebDriver> idle = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger created = new AtomicInteger();
+
+	DriverPool(Supplier<WebDriver> factory) {
+		this.factory = factory;
+	}
+
+	WebDriver acquire() {
+		WebDriver driver = idle.poll();
+		if (driver == null) {
+			driver = factory.get();
+			created.incrementAndGet();
+		}
+		return driver;
+	}
+
+	/**
+	 * @param driver
+	 * @param reusable false to quit the driver
+	 */
+	void release(WebDriver driver, boolean reusable) {
+		try {
+			// the readiness check of the last page must not run against the next iteration
+			AbstractPortalPage.awaitPageLoads(driver);
+		} catch (WebDriverException | AssertionError e) {
+			// the last page never loaded, the driver may be in any state
+			reusable = false;
+		}
+		if (reusable) {
+			try {
+				// the next iteration starts logged out
+				driver.manage().deleteAllCookies();
+				idle.add(driver);
+				return;
+			} catch (WebDriverException e) {
+				;// quit below
+			}
+		}
+		quit(driver);
+	}
+
+	/**
+	 * @return the number of drivers created so far
+	 */
+	int getCreated() {
+		return created.get();
+	}
+
+	@Override
+	public void close() {
+		WebDriver driver;
+		while ((driver = idle.poll()) != null) {
+			quit(driver);
+		}
+	}
+
+	private static void quit(WebDriver driver) {
+		try {
+			driver.quit();
+		} catch (WebDriverException e) {
+			;// already gone
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package com.java.load;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.openqa.selenium.WebDriver;
+
+/**
+ * A user journey run by the LoadRunner: named steps chained through the page
+ * objects, each step getting what the previous one returned (the driver for
+ * the first one).
+ *
+ * <pre>
+ * Journey.start("login")
+ * 		.then("home", HomePage::getPage)
+ * 		.then("loginPage", HomePage::clickLoginLink)
+ * 		.then("login", LoginPage::login);
+ * </pre>
+ *
+ * Journeys are immutable, then returns a new journey.
+ *
+ * @param <T> what the last step returns
+ */
+public final class Journey<T> {
+
+	/**
+	 * A step of a journey.
+	 *
+	 * @param <I> what the previous step returned
+	 * @param <O> what the step returns
+	 */
+	public interface Step<I, O> {
+
+		O run(I input) throws Exception;
+	}
+
+	private final String name;
+	private final List<String> stepNames;
+	private final List<Step<Object, Object>> steps;
+
+	private Journey(String name, List<String> stepNames, List<Step<Object, Object>> steps) {
+		this.name = name;
+		this.stepNames = stepNames;
+		this.steps = steps;
+	}
+
+	/**
+	 * @param name
+	 * @return a journey without steps, the first step gets the driver
+	 */
+	public static Journey<WebDriver> start(String name) {
+		return new Journey<>(name, Collections.<String>emptyList(), Collections.<Step<Object, Object>>emptyList());
+	}
+
+	/**
+	 * @param stepName the name the step is reported under
+	 * @param step
+	 * @return a journey running this one, then the step
+	 */
+	@SuppressWarnings("unchecked")
+	public <O> Journey<O> then(String stepName, Step<? super T, O> step) {
+		// the whole journey is reported under its own name
+		if (stepNames.contains(stepName) || stepName.equals(name)) {
+			throw new IllegalArgumentException("Journey " + name + " already has a step named " + stepName + ".");
+		}
+		List<String> names = new ArrayList<>(stepNames);
+		names.add(stepName);
+		List<Step<Object, Object>> all = new ArrayList<>(steps);
+		all.add((Step<Object, Object>) step);
+		return new Journey<>(name, Collections.unmodifiableList(names), Collections.unmodifiableList(all));
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the step names, in the order they run
+	 */
+	public List<String> getStepNames() {
+		return stepNames;
+	}
+
+	/**
+	 * Runs the journey once, recording the latency of each step. A failing step
+	 * ends the iteration.
+	 *
+	 * @param driver
+	 * @param report
+	 * @return false if a step failed
+	 */
+	boolean run(WebDriver driver, LoadReport report) {
+		Object input = driver;
+		long journeyStart = System.nanoTime();
+		for (int i = 0; i < steps.size(); i++) {
+			long start = System.nanoTime();
+			try {
+				input = steps.get(i).run(input);
+			} catch (Exception | AssertionError e) {
+				report.recordError(stepNames.get(i), e);
+				report.recordError(name, e);
+				return false;
+			}
+			report.record(stepNames.get(i), System.nanoTime() - start);
+		}
+		report.record(name, System.nanoTime() - journeyStart);
+		return true;
+	}
+}
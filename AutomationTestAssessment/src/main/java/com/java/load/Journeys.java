@@ -0,0 +1,95 @@
+package com.java.load;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.java.pageobjects.DashboardPage;
+import com.java.pageobjects.HomePage;
+import com.java.pageobjects.KataPage;
+import com.java.pageobjects.KataResult;
+import com.java.pageobjects.LoginPage;
+
+/**
+ * The journeys of the load runner, made of the flows of the page objects.
+ * <ul>
+ * <li>search: home page, login through the UI, kata search page and a search
+ * for two random letters.
+ * <li>enroll: search, then enrollment into one of the first results and check
+ * of the enrolled courses on the dashboard.
+ * </ul>
+ */
+public final class Journeys {
+
+	// the enrolled kata is picked among the first results
+	private static final int ENROLL_CHOICES = 20;
+
+	private Journeys() {
+	}
+
+	/**
+	 * @param name "search" or "enroll"
+	 * @return the journey
+	 */
+	public static Journey<?> forName(String name) {
+		switch (name) {
+		case "search":
+			return search();
+		case "enroll":
+			return enroll();
+		default:
+			throw new IllegalArgumentException("Unknown journey " + name + ", expected search or enroll.");
+		}
+	}
+
+	public static Journey<KataPage> search() {
+		return search("search");
+	}
+
+	public static Journey<List<String>> enroll() {
+		return search("enroll")
+				.then("enrollKata", kataPage -> {
+					List<String> names = kataPage.streamResults().limit(ENROLL_CHOICES).map(KataResult::getName)
+							.collect(Collectors.toList());
+					if (names.isEmpty()) {
+						throw new IllegalStateException("No kata found to enroll into.");
+					}
+					String course = names.get(ThreadLocalRandom.current().nextInt(names.size()));
+					kataPage.enrollIntoCourse(course);
+					return new SimpleImmutableEntry<>(kataPage, course);
+				})
+				.then("enrolledCourses", (Map.Entry<KataPage, String> enrollment) -> {
+					List<String> courses = enrollment.getKey().navigateTo(DashboardPage.class).getEnrolledCourses();
+					for (String course : courses) {
+						if (StringUtils.contains(course, enrollment.getValue())) {
+							return courses;
+						}
+					}
+					throw new AssertionError("User was not enrolled in " + enrollment.getValue());
+				});
+	}
+
+	private static Journey<KataPage> search(String journeyName) {
+		return Journey.start(journeyName)
+				.then("home", HomePage::getPage)
+				.then("loginPage", HomePage::clickLoginLink)
+				.then("login", LoginPage::login)
+				.then("kataPage", dashboardPage -> dashboardPage.navigateTo(KataPage.class))
+				.then("searchKata", kataPage -> {
+					kataPage.search(randomLetters(2));
+					return kataPage;
+				});
+	}
+
+	private static String randomLetters(int count) {
+		StringBuilder letters = new StringBuilder();
+		for (int i = 0; i < count; i++) {
+			letters.append((char) ('a' + ThreadLocalRandom.current().nextInt(26)));
+		}
+		return letters.toString();
+	}
+}
@@ -0,0 +1,204 @@
+package com.java.load;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+import org.openqa.selenium.json.Json;
+
+/**
+ * Latencies and errors of the steps of a load run, the whole journey being
+ * reported as one more step. Throughput is the number of successful
+ * executions per second of the run.
+ */
+public class LoadReport {
+
+	// one hour in microseconds, longer steps are clamped
+	private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.HOURS.toMicros(1);
+
+	private final Map<String, StepStats> steps = new LinkedHashMap<>();
+	private volatile long elapsedNanos;
+
+	/**
+	 * @param names the steps, in the order they are reported
+	 */
+	LoadReport(List<String> names) {
+		for (String name : names) {
+			steps.put(name, new StepStats(name));
+		}
+	}
+
+	void record(String step, long nanos) {
+		stats(step).record(nanos);
+	}
+
+	void recordError(String step, Throwable error) {
+		stats(step).recordError(error);
+	}
+
+	void setElapsedNanos(long elapsedNanos) {
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	private StepStats stats(String step) {
+		StepStats stats = steps.get(step);
+		if (stats == null) {
+			throw new IllegalArgumentException("Unknown step " + step + ".");
+		}
+		return stats;
+	}
+
+	/**
+	 * @return the duration of the run
+	 */
+	public long getElapsedMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+	}
+
+	/**
+	 * @param step
+	 * @return the stats of the step
+	 */
+	public StepStats getStep(String step) {
+		return stats(step);
+	}
+
+	/**
+	 * @return the stats of every step, the journey last
+	 */
+	public List<StepStats> getSteps() {
+		return new ArrayList<>(steps.values());
+	}
+
+	/**
+	 * Prints the report as a table.
+	 *
+	 * @param out
+	 */
+	public void print(PrintStream out) {
+		out.println(String.format("%-24s %8s %8s %10s %10s %10s %10s %10s", "step", "count", "errors", "per sec",
+				"p50 ms", "p95 ms", "p99 ms", "max ms"));
+		for (StepStats stats : steps.values()) {
+			Map<String, Object> row = stats.toMap(elapsedNanos);
+			out.println(String.format("%-24s %8d %8d %10.2f %10.1f %10.1f %10.1f %10.1f", row.get("step"),
+					row.get("count"), row.get("errors"), row.get("perSecond"), row.get("p50Ms"), row.get("p95Ms"),
+					row.get("p99Ms"), row.get("maxMs")));
+		}
+		out.println("Elapsed: " + getElapsedMillis() + " ms");
+	}
+
+	/**
+	 * Writes load-report.json and load-report.csv to the directory passed.
+	 *
+	 * @param dir
+	 * @throws IOException
+	 */
+	public void export(File dir) throws IOException {
+		dir.mkdirs();
+		List<Map<String, Object>> rows = new ArrayList<>();
+		for (StepStats stats : steps.values()) {
+			rows.add(stats.toMap(elapsedNanos));
+		}
+		try (PrintWriter out = new PrintWriter(new File(dir, "load-report.json"), StandardCharsets.UTF_8.name())) {
+			out.println(new Json().toJson(rows));
+		}
+		try (PrintWriter out = new PrintWriter(new File(dir, "load-report.csv"), StandardCharsets.UTF_8.name())) {
+			out.println("step,count,errors,perSecond,meanMs,p50Ms,p95Ms,p99Ms,maxMs,lastError");
+			for (Map<String, Object> row : rows) {
+				StringBuilder line = new StringBuilder();
+				for (Object value : row.values()) {
+					if (line.length() > 0) {
+						line.append(',');
+					}
+					line.append(csv(value));
+				}
+				out.println(line);
+			}
+		}
+	}
+
+	private static String csv(Object value) {
+		String text = value == null ? "" : String.valueOf(value);
+		if (text.contains(",") || text.contains("\"") || text.contains("\n")) {
+			return '"' + text.replace("\"", "\"\"") + '"';
+		}
+		return text;
+	}
+
+	/**
+	 * Latency histogram and error count of one step.
+	 */
+	public static class StepStats {
+
+		private final String name;
+		private final Histogram histogram = new Histogram(1, HIGHEST_TRACKABLE_MICROS, 3);
+		private long errors;
+		private String lastError;
+
+		StepStats(String name) {
+			this.name = name;
+		}
+
+		synchronized void record(long nanos) {
+			long micros = Math.max(1, Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), HIGHEST_TRACKABLE_MICROS));
+			histogram.recordValue(micros);
+		}
+
+		synchronized void recordError(Throwable error) {
+			errors++;
+			String message = error.getMessage();
+			lastError = error.getClass().getSimpleName() + (message == null ? "" : ": " + message.split("\n")[0]);
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @return the number of successful executions
+		 */
+		public synchronized long getCount() {
+			return histogram.getTotalCount();
+		}
+
+		public synchronized long getErrors() {
+			return errors;
+		}
+
+		/**
+		 * @param percentile e.g. 99.0
+		 * @return the latency at the percentile, in ms
+		 */
+		public synchronized double getPercentileMillis(double percentile) {
+			return histogram.getValueAtPercentile(percentile) / 1000.0;
+		}
+
+		synchronized Map<String, Object> toMap(long elapsedNanos) {
+			double seconds = elapsedNanos / 1e9;
+			Map<String, Object> map = new LinkedHashMap<>();
+			map.put("step", name);
+			map.put("count", histogram.getTotalCount());
+			map.put("errors", errors);
+			map.put("perSecond", seconds > 0 ? round(histogram.getTotalCount() / seconds) : 0D);
+			map.put("meanMs", round(histogram.getMean() / 1000.0));
+			map.put("p50Ms", round(histogram.getValueAtPercentile(50) / 1000.0));
+			map.put("p95Ms", round(histogram.getValueAtPercentile(95) / 1000.0));
+			map.put("p99Ms", round(histogram.getValueAtPercentile(99) / 1000.0));
+			map.put("maxMs", round(histogram.getMaxValue() / 1000.0));
+			map.put("lastError", lastError);
+			return map;
+		}
+
+		private static double round(double value) {
+			return Math.round(value * 100) / 100.0;
+		}
+	}
+}
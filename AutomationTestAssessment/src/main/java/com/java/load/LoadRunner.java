@@ -0,0 +1,236 @@
+package com.java.load;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.openqa.selenium.WebDriver;
+
+import com.java.driver.DriverFactory;
+import com.java.metrics.ActionMetrics;
+import com.java.metrics.PageTimings;
+import com.java.metrics.WireCommands;
+
+/**
+ * Runs a journey as load: a number of virtual users, each with its own
+ * browser from a DriverPool, start over the ramp-up period and run the journey
+ * in a loop until the duration or their number of iterations is reached. With
+ * pacing, a user starts its iterations at that interval (or at once when the
+ * previous one took longer).
+ * <p>
+ * Run main to load the portal at -Dportal.base.url, or a local StubPortal with
+ * -Dload.stub=true. See the README for the other system properties.
+ */
+public class LoadRunner {
+
+	private final Journey<?> journey;
+	private final Supplier<WebDriver> drivers;
+	private int users = 1;
+	private long rampUpMillis;
+	private long pacingMillis;
+	private long durationMillis;
+	private int iterations;
+
+	/**
+	 * @param journey
+	 * @param drivers creates the browsers of the users
+	 */
+	public LoadRunner(Journey<?> journey, Supplier<WebDriver> drivers) {
+		this.journey = journey;
+		this.drivers = drivers;
+	}
+
+	/**
+	 * @param users the number of concurrent users
+	 * @return this runner
+	 */
+	public LoadRunner users(int users) {
+		if (users < 1) {
+			throw new IllegalArgumentException("At least one user is needed, got " + users + ".");
+		}
+		this.users = users;
+		return this;
+	}
+
+	/**
+	 * @param rampUp the time over which the users start, evenly spread
+	 * @param unit
+	 * @return this runner
+	 */
+	public LoadRunner rampUp(long rampUp, TimeUnit unit) {
+		this.rampUpMillis = unit.toMillis(rampUp);
+		return this;
+	}
+
+	/**
+	 * @param pacing the minimum interval between the iteration starts of a user
+	 * @param unit
+	 * @return this runner
+	 */
+	public LoadRunner pacing(long pacing, TimeUnit unit) {
+		this.pacingMillis = unit.toMillis(pacing);
+		return this;
+	}
+
+	/**
+	 * @param duration how long the users run, from the start of the run, 0 for
+	 *                 no limit
+	 * @param unit
+	 * @return this runner
+	 */
+	public LoadRunner duration(long duration, TimeUnit unit) {
+		this.durationMillis = unit.toMillis(duration);
+		return this;
+	}
+
+	/**
+	 * @param iterations the number of iterations of each user, 0 for no limit
+	 * @return this runner
+	 */
+	public LoadRunner iterations(int iterations) {
+		this.iterations = iterations;
+		return this;
+	}
+
+	/**
+	 * Runs the load and waits for every user to finish.
+	 *
+	 * @return the report of the run
+	 * @throws InterruptedException
+	 */
+	public LoadReport run() throws InterruptedException {
+		if (durationMillis <= 0 && iterations <= 0) {
+			throw new IllegalStateException("Set a duration or a number of iterations, the run would never end.");
+		}
+		List<String> steps = new ArrayList<>(journey.getStepNames());
+		steps.add(journey.getName());
+		LoadReport report = new LoadReport(steps);
+
+		ExecutorService executor = Executors.newFixedThreadPool(users, new ThreadFactory() {
+
+			private final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable task) {
+				return new Thread(task, "load-user-" + count.incrementAndGet());
+			}
+		});
+		DriverPool pool = new DriverPool(drivers);
+		long start = System.nanoTime();
+		long end = durationMillis > 0 ? start + TimeUnit.MILLISECONDS.toNanos(durationMillis) : Long.MAX_VALUE;
+		try {
+			for (int i = 0; i < users; i++) {
+				long startAt = start + TimeUnit.MILLISECONDS.toNanos(rampUpMillis * i / users);
+				executor.execute(() -> runUser(pool, report, startAt, end));
+			}
+			executor.shutdown();
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+			report.setElapsedNanos(System.nanoTime() - start);
+		} finally {
+			executor.shutdownNow();
+			pool.close();
+		}
+		return report;
+	}
+
+	private void runUser(DriverPool pool, LoadReport report, long startAt, long end) {
+		if (!sleepUntil(startAt)) {
+			return;
+		}
+		int done = 0;
+		while (System.nanoTime() < end && (iterations <= 0 || done < iterations)) {
+			long iterationStart = System.nanoTime();
+			WebDriver driver = null;
+			try {
+				driver = pool.acquire();
+			} catch (RuntimeException e) {
+				// no browser for this iteration, the journey is reported failed
+				report.recordError(journey.getName(), e);
+			}
+			if (driver != null) {
+				pool.release(driver, journey.run(driver, report));
+			}
+			done++;
+			if (!sleepUntil(Math.min(iterationStart + TimeUnit.MILLISECONDS.toNanos(pacingMillis), end))) {
+				return;
+			}
+		}
+	}
+
+	private static boolean sleepUntil(long nanoTime) {
+		long remaining = nanoTime - System.nanoTime();
+		if (remaining > 0) {
+			try {
+				TimeUnit.NANOSECONDS.sleep(remaining);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Runs the journey -Dload.journey with the settings of the system properties,
+	 * prints the report and writes it to -Dload.report.dir with the action
+	 * metrics of the run.
+	 *
+	 * @param args
+	 * @throws Exception
+	 */
+	public static void main(String[] args) throws Exception {
+		StubPortal stub = null;
+		if (Boolean.getBoolean("load.stub")) {
+			stub = new StubPortal(new File(System.getProperty("load.stub.dir", StubPortal.DEFAULT_DIR)), 0,
+					Long.getLong("load.stub.delay.ms", 0));
+			stub.start();
+			// read by the page objects when they are first loaded, below
+			System.setProperty("portal.base.url", stub.getUrl());
+			System.out.println("Stub portal on " + stub.getUrl());
+		}
+
+		// concurrent users are slower than a test run, they would breach the budgets
+		if (System.getProperty("budget.enabled") == null) {
+			System.setProperty("budget.enabled", "false");
+		}
+		// the forms are set in one script, load runs measure the portal, not the typing
+		if (System.getProperty("form.fill.mode") == null) {
+			System.setProperty("form.fill.mode", "fast");
+		}
+
+		String profiles = System.getProperty("load.browser.profile", "fast");
+		LoadRunner runner = new LoadRunner(Journeys.forName(System.getProperty("load.journey", "search")), () -> {
+			WebDriver driver = DriverFactory.createDriver(DriverFactory.profiles(profiles));
+			return ActionMetrics.ENABLED ? WireCommands.instrument(driver) : driver;
+		});
+		runner.users(Integer.getInteger("load.users", 1))
+				.rampUp(Long.getLong("load.rampup.seconds", 0), TimeUnit.SECONDS)
+				.pacing(Long.getLong("load.pacing.ms", 0), TimeUnit.MILLISECONDS)
+				.duration(Long.getLong("load.duration.seconds", 60), TimeUnit.SECONDS)
+				.iterations(Integer.getInteger("load.iterations", 0));
+
+		try {
+			LoadReport report = runner.run();
+			report.print(System.out);
+			File dir = new File(System.getProperty("load.report.dir", "test-output/load"));
+			report.export(dir);
+			if (ActionMetrics.ENABLED) {
+				ActionMetrics.export(dir);
+			}
+			if (PageTimings.ENABLED) {
+				PageTimings.export(dir);
+			}
+			System.out.println("Report written to " + dir.getAbsolutePath());
+		} finally {
+			if (stub != null) {
+				stub.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package com.java.load;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.java.pageobjects.Routes;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A local copy of the portal pages the journeys go through (stub-portal in the
+ * project), with the elements the page objects look for and just enough script
+ * to log in, search and enroll. Lets the load runner and the page objects be
+ * exercised offline. Login and enrollments are kept in the browser's local
+ * storage.
+ */
+public class StubPortal implements AutoCloseable {
+
+	public static final String DEFAULT_DIR = "stub-portal";
+
+	private static final Map<String, String> PAGES;
+	private static final Map<String, String> CONTENT_TYPES;
+
+	static {
+		Map<String, String> pages = new HashMap<>();
+		pages.put("/", "index.html");
+		pages.put(Routes.LOGIN, "sign_in.html");
+		pages.put(Routes.DASHBOARD, "dashboard.html");
+		pages.put(Routes.KATA_SEARCH, "kata_search.html");
+		PAGES = Collections.unmodifiableMap(pages);
+
+		Map<String, String> types = new HashMap<>();
+		types.put("html", "text/html; charset=utf-8");
+		types.put("js", "application/javascript");
+		types.put("css", "text/css");
+		types.put("txt", "text/plain");
+		CONTENT_TYPES = Collections.unmodifiableMap(types);
+	}
+
+	private final File root;
+	private final long delayMillis;
+	private final HttpServer server;
+
+	/**
+	 * @param root        the directory of the pages
+	 * @param port        0 for any free port
+	 * @param delayMillis added to every response, to simulate a slower server
+	 * @throws IOException
+	 */
+	public StubPortal(File root, int port, long delayMillis) throws IOException {
+		if (!new File(root, PAGES.get("/")).isFile()) {
+			throw new IOException("No stub portal pages in " + root.getAbsolutePath() + ".");
+		}
+		this.root = root;
+		this.delayMillis = delayMillis;
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+		server.createContext("/", this::serve);
+		server.setExecutor(Executors.newCachedThreadPool(task -> {
+			Thread thread = new Thread(task, "stub-portal");
+			thread.setDaemon(true);
+			return thread;
+		}));
+	}
+
+	public void start() {
+		server.start();
+	}
+
+	/**
+	 * @return the base url of the portal, without trailing slash
+	 */
+	public String getUrl() {
+		return "http://127.0.0.1:" + server.getAddress().getPort();
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+	}
+
+	private void serve(HttpExchange exchange) throws IOException {
+		try {
+			if (delayMillis > 0) {
+				TimeUnit.MILLISECONDS.sleep(delayMillis);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		String path = exchange.getRequestURI().getPath();
+		String name = PAGES.containsKey(path) ? PAGES.get(path) : path.substring(1);
+		File file = new File(root, name);
+		// only the files of the root directory are served
+		if (name.isEmpty() || name.contains("/") || name.contains("\\") || !file.isFile()) {
+			exchange.sendResponseHeaders(404, -1);
+			exchange.close();
+			return;
+		}
+
+		byte[] body = Files.readAllBytes(file.toPath());
+		String extension = name.substring(name.lastIndexOf('.') + 1);
+		String type = CONTENT_TYPES.get(extension);
+		exchange.getResponseHeaders().add("Content-Type", type == null ? "application/octet-stream" : type);
+		exchange.sendResponseHeaders(200, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+}
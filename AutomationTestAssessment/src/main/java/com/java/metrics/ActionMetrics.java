@@ -0,0 +1,306 @@
+package com.java.metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+import org.openqa.selenium.json.Json;
+
+/**
+ * Latency and wire-command counts of the page object actions (click, hover,
+ * waits, ...), tagged with the page class and the element description. Times
+ * are inclusive: an action calling another one (enterTextInInputField calls
+ * hover and click) includes its time.
+ * <p>
+ * Disabled by default, enabled with the system property metrics.enabled=true:
+ * the drivers are then instrumented (see WireCommands), which costs a proxy
+ * call per command.
+ */
+public final class ActionMetrics {
+
+	public static final boolean ENABLED = Boolean.getBoolean("metrics.enabled");
+
+	// one hour in microseconds, longer actions are clamped
+	private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.HOURS.toMicros(1);
+
+	private static final ConcurrentMap<String, ActionStats> STATS = new ConcurrentHashMap<>();
+
+	private static final Timer DISABLED = new Timer(0, 0) {
+
+		@Override
+		public void stop(Class<?> page, String action, String element) {
+		}
+
+		@Override
+		public void stop(Class<?> page, String action, String element, Object path) {
+		}
+	};
+
+	private ActionMetrics() {
+	}
+
+	/**
+	 * Starts timing an action.
+	 * 
+	 * @return the timer to stop when the action is done
+	 */
+	public static Timer start() {
+		if (!ENABLED) {
+			return DISABLED;
+		}
+		return new Timer(System.nanoTime(), WireCommands.current());
+	}
+
+	/**
+	 * Records one execution of an action.
+	 * 
+	 * @param page         the page class
+	 * @param action       e.g. "click"
+	 * @param element      the element description
+	 * @param nanos        the duration
+	 * @param wireCommands the number of WebDriver commands sent
+	 */
+	public static void record(Class<?> page, String action, String element, long nanos, long wireCommands) {
+		stats(page, action, element).record(nanos, wireCommands);
+	}
+
+	/**
+	 * Counts the path an action went through, e.g. a native or a script click.
+	 * 
+	 * @param page    the page class
+	 * @param action  e.g. "click"
+	 * @param element the element description
+	 * @param path    e.g. "native"
+	 */
+	public static void recordPath(Class<?> page, String action, String element, String path) {
+		stats(page, action, element).recordPath(path);
+	}
+
+	private static ActionStats stats(Class<?> page, String action, String element) {
+		String pageName = page == null ? "<unspecified>" : page.getSimpleName();
+		String elementName = element == null || element.isEmpty() ? "<unspecified>" : element;
+		String key = pageName + '\u0000' + action + '\u0000' + elementName;
+
+		ActionStats stats = STATS.get(key);
+		if (stats == null) {
+			ActionStats created = new ActionStats(pageName, action, elementName);
+			stats = STATS.putIfAbsent(key, created);
+			if (stats == null) {
+				stats = created;
+			}
+		}
+		return stats;
+	}
+
+	/**
+	 * @return the stats of every action, the most time consuming first
+	 */
+	public static List<ActionStats> snapshot() {
+		List<ActionStats> all = new ArrayList<>(STATS.values());
+		Collections.sort(all, new Comparator<ActionStats>() {
+
+			@Override
+			public int compare(ActionStats a, ActionStats b) {
+				return Long.compare(b.getTotalMicros(), a.getTotalMicros());
+			}
+		});
+		return all;
+	}
+
+	/**
+	 * Clears all recorded stats.
+	 */
+	public static void reset() {
+		STATS.clear();
+	}
+
+	/**
+	 * Writes action-metrics.json and action-metrics.csv to the directory passed.
+	 * 
+	 * @param dir
+	 * @throws IOException
+	 */
+	public static void export(File dir) throws IOException {
+		List<ActionStats> all = snapshot();
+		dir.mkdirs();
+
+		List<Map<String, Object>> rows = new ArrayList<>();
+		for (ActionStats stats : all) {
+			rows.add(stats.toMap());
+		}
+		try (PrintWriter out = new PrintWriter(new File(dir, "action-metrics.json"), StandardCharsets.UTF_8.name())) {
+			out.println(new Json().toJson(rows));
+		}
+
+		try (PrintWriter out = new PrintWriter(new File(dir, "action-metrics.csv"), StandardCharsets.UTF_8.name())) {
+			out.println("page,action,element,count,wireCommands,totalMs,meanMs,p50Ms,p90Ms,p99Ms,maxMs,paths");
+			for (Map<String, Object> row : rows) {
+				StringBuilder line = new StringBuilder();
+				for (Object value : row.values()) {
+					if (line.length() > 0) {
+						line.append(',');
+					}
+					line.append(csv(value));
+				}
+				out.println(line);
+			}
+		}
+	}
+
+	private static String csv(Object value) {
+		String text = String.valueOf(value);
+		if (text.contains(",") || text.contains("\"") || text.contains("\n")) {
+			return '"' + text.replace("\"", "\"\"") + '"';
+		}
+		return text;
+	}
+
+	/**
+	 * Times one action.
+	 */
+	public static class Timer {
+
+		private final long startNanos;
+		private final long startCommands;
+
+		Timer(long startNanos, long startCommands) {
+			this.startNanos = startNanos;
+			this.startCommands = startCommands;
+		}
+
+		/**
+		 * Records the action.
+		 * 
+		 * @param page    the page class
+		 * @param action  e.g. "click"
+		 * @param element the element description
+		 */
+		public void stop(Class<?> page, String action, String element) {
+			record(page, action, element, System.nanoTime() - startNanos, WireCommands.current() - startCommands);
+		}
+
+		/**
+		 * Records the action and the path it went through.
+		 * 
+		 * @param page    the page class
+		 * @param action  e.g. "click"
+		 * @param element the element description
+		 * @param path    e.g. Interactions.Path.NATIVE, not counted if null
+		 */
+		public void stop(Class<?> page, String action, String element, Object path) {
+			stop(page, action, element);
+			if (path != null) {
+				recordPath(page, action, element, path.toString());
+			}
+		}
+	}
+
+	/**
+	 * Latency histogram and wire-command count of one (page, action, element).
+	 */
+	public static class ActionStats {
+
+		private final String page;
+		private final String action;
+		private final String element;
+		private final Histogram histogram = new Histogram(1, HIGHEST_TRACKABLE_MICROS, 3);
+		private long wireCommands;
+		private final Map<String, Long> paths = new TreeMap<>();
+
+		ActionStats(String page, String action, String element) {
+			this.page = page;
+			this.action = action;
+			this.element = element;
+		}
+
+		synchronized void record(long nanos, long commands) {
+			long micros = Math.max(1, Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), HIGHEST_TRACKABLE_MICROS));
+			histogram.recordValue(micros);
+			wireCommands += commands;
+		}
+
+		synchronized void recordPath(String path) {
+			Long count = paths.get(path);
+			paths.put(path, count == null ? 1 : count + 1);
+		}
+
+		public String getPage() {
+			return page;
+		}
+
+		public String getAction() {
+			return action;
+		}
+
+		public String getElement() {
+			return element;
+		}
+
+		public synchronized long getCount() {
+			return histogram.getTotalCount();
+		}
+
+		public synchronized long getWireCommands() {
+			return wireCommands;
+		}
+
+		/**
+		 * @return how many times each path was used, e.g. {native=10, script=1}
+		 */
+		public synchronized Map<String, Long> getPaths() {
+			return new TreeMap<>(paths);
+		}
+
+		public synchronized long getTotalMicros() {
+			return (long) (histogram.getMean() * histogram.getTotalCount());
+		}
+
+		/**
+		 * @param percentile e.g. 99.0
+		 * @return the latency at the percentile, in ms
+		 */
+		public synchronized double getPercentileMillis(double percentile) {
+			return histogram.getValueAtPercentile(percentile) / 1000.0;
+		}
+
+		synchronized Map<String, Object> toMap() {
+			Map<String, Object> map = new LinkedHashMap<>();
+			map.put("page", page);
+			map.put("action", action);
+			map.put("element", element);
+			map.put("count", histogram.getTotalCount());
+			map.put("wireCommands", wireCommands);
+			map.put("totalMs", round(histogram.getMean() * histogram.getTotalCount() / 1000.0));
+			map.put("meanMs", round(histogram.getMean() / 1000.0));
+			map.put("p50Ms", round(histogram.getValueAtPercentile(50) / 1000.0));
+			map.put("p90Ms", round(histogram.getValueAtPercentile(90) / 1000.0));
+			map.put("p99Ms", round(histogram.getValueAtPercentile(99) / 1000.0));
+			map.put("maxMs", round(histogram.getMaxValue() / 1000.0));
+			StringBuilder pathCounts = new StringBuilder();
+			for (Map.Entry<String, Long> entry : paths.entrySet()) {
+				if (pathCounts.length() > 0) {
+					pathCounts.append(' ');
+				}
+				pathCounts.append(entry.getKey()).append('=').append(entry.getValue());
+			}
+			map.put("paths", pathCounts.toString());
+			return map;
+		}
+
+		private static double round(double value) {
+			return Math.round(value * 100) / 100.0;
+		}
+	}
+}
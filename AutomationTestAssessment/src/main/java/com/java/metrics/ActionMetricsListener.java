@@ -0,0 +1,35 @@
+package com.java.metrics;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+
+/**
+ * Exports the action metrics and the page timings, those enabled, to
+ * test-output/metrics when the suite finishes.
+ */
+public class ActionMetricsListener implements ISuiteListener {
+
+	@Override
+	public void onStart(ISuite suite) {
+		ActionMetrics.reset();
+		PageTimings.reset();
+	}
+
+	@Override
+	public void onFinish(ISuite suite) {
+		File dir = new File(new File(suite.getOutputDirectory()).getParentFile(), "metrics");
+		try {
+			if (ActionMetrics.ENABLED) {
+				ActionMetrics.export(dir);
+			}
+			if (PageTimings.ENABLED) {
+				PageTimings.export(dir);
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("Unable to export action metrics to " + dir, e);
+		}
+	}
+}
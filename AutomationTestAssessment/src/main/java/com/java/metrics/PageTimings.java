@@ -0,0 +1,272 @@
+package com.java.metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.json.Json;
+
+import com.java.utils.ScriptBatch;
+
+/**
+ * The browser's own timings of the documents the pages were loaded from, read
+ * from the Navigation Timing and Paint Timing entries once the page is ready:
+ * time to first byte, DOMContentLoaded, load, first paint and first contentful
+ * paint, in ms from the start of the navigation. Aggregated per page class.
+ * <p>
+ * Disabled by default, enabled with the system property page.timings=true.
+ * Costs one script per new document.
+ */
+public final class PageTimings {
+
+	public static final boolean ENABLED = Boolean.getBoolean("page.timings");
+
+	/**
+	 * The metrics, in the order of the report.
+	 */
+	public static final List<String> METRICS = Collections.unmodifiableList(
+			Arrays.asList("ttfb", "domContentLoaded", "load", "firstPaint", "firstContentfulPaint"));
+
+	/*
+	 * The origin is null without a navigation entry. A metric the document
+	 * hasn't reached yet (load still running, nothing painted) is 0.
+	 */
+	private static final ScriptBatch TIMINGS_JS = new ScriptBatch()
+			.run("var nav = performance.getEntriesByType('navigation')[0]")
+			.run("function paint(name) {"
+					+ " var p = performance.getEntriesByName(name, 'paint')[0]; return p ? p.startTime : 0; }")
+			.read("origin", "nav ? performance.timeOrigin : null")
+			.read("ttfb", "nav ? nav.responseStart : 0")
+			.read("domContentLoaded", "nav ? nav.domContentLoadedEventEnd : 0")
+			.read("load", "nav ? nav.loadEventEnd : 0")
+			.read("firstPaint", "paint('first-paint')")
+			.read("firstContentfulPaint", "paint('first-contentful-paint')");
+
+	// one minute in microseconds, longer timings are clamped
+	private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+	private static final ConcurrentMap<String, PageStats> STATS = new ConcurrentHashMap<>();
+
+	/*
+	 * The last document read per session. A page object created without a
+	 * navigation (after a click on the same document) reads the same entry again,
+	 * only the metrics the document reached since are recorded.
+	 */
+	private static final Map<WebDriver, DocumentState> DOCUMENTS = new WeakHashMap<>();
+
+	private PageTimings() {
+	}
+
+	/**
+	 * Reads the timings of the current document and records those not recorded
+	 * yet, under the page class the document was first read for. Never fails: a
+	 * browser without the timing entries, or an error, records nothing.
+	 *
+	 * @param driver
+	 * @param page   the page class
+	 */
+	public static void capture(WebDriver driver, Class<?> page) {
+		if (ENABLED) {
+			record(driver, page);
+		}
+	}
+
+	static void record(WebDriver driver, Class<?> page) {
+		if (!(driver instanceof JavascriptExecutor)) {
+			return;
+		}
+		ScriptBatch.Results timings;
+		try {
+			timings = TIMINGS_JS.execute(driver);
+		} catch (WebDriverException e) {
+			return;
+		}
+		Object origin = timings.get("origin");
+		if (origin == null) {
+			return;
+		}
+		DocumentState document;
+		synchronized (DOCUMENTS) {
+			document = DOCUMENTS.get(driver);
+			if (document == null || !Objects.equals(document.origin, origin)) {
+				document = new DocumentState(origin, page);
+				DOCUMENTS.put(driver, document);
+			}
+		}
+		PageStats stats = stats(document.page);
+		for (String metric : METRICS) {
+			double value = timings.getDouble(metric);
+			// a metric the document hasn't reached yet is read again on the next capture
+			if (value > 0 && document.recorded.add(metric)) {
+				stats.record(metric, value);
+			}
+		}
+	}
+
+	/**
+	 * A document read by a session: its time origin, the page class it was first
+	 * read for and the metrics already recorded from it.
+	 */
+	private static class DocumentState {
+
+		private final Object origin;
+		private final Class<?> page;
+		private final Set<String> recorded = Collections.synchronizedSet(new HashSet<String>());
+
+		DocumentState(Object origin, Class<?> page) {
+			this.origin = origin;
+			this.page = page;
+		}
+	}
+
+	private static PageStats stats(Class<?> page) {
+		String pageName = page == null ? "<unspecified>" : page.getSimpleName();
+		PageStats stats = STATS.get(pageName);
+		if (stats == null) {
+			PageStats created = new PageStats(pageName);
+			stats = STATS.putIfAbsent(pageName, created);
+			if (stats == null) {
+				stats = created;
+			}
+		}
+		return stats;
+	}
+
+	/**
+	 * @param page the simple name of the page class
+	 * @return its timings, null if none was recorded
+	 */
+	public static PageStats get(String page) {
+		return STATS.get(page);
+	}
+
+	/**
+	 * Clears all recorded timings.
+	 */
+	public static void reset() {
+		STATS.clear();
+		synchronized (DOCUMENTS) {
+			DOCUMENTS.clear();
+		}
+	}
+
+	/**
+	 * Writes page-timings.json and page-timings.csv to the directory passed, one
+	 * row per page and metric.
+	 *
+	 * @param dir
+	 * @throws IOException
+	 */
+	public static void export(File dir) throws IOException {
+		List<String> pages = new ArrayList<>(STATS.keySet());
+		Collections.sort(pages);
+		List<Map<String, Object>> rows = new ArrayList<>();
+		for (String page : pages) {
+			rows.addAll(STATS.get(page).toRows());
+		}
+		dir.mkdirs();
+
+		try (PrintWriter out = new PrintWriter(new File(dir, "page-timings.json"), StandardCharsets.UTF_8.name())) {
+			out.println(new Json().toJson(rows));
+		}
+
+		try (PrintWriter out = new PrintWriter(new File(dir, "page-timings.csv"), StandardCharsets.UTF_8.name())) {
+			out.println("page,metric,count,meanMs,p50Ms,p75Ms,p95Ms,maxMs");
+			for (Map<String, Object> row : rows) {
+				StringBuilder line = new StringBuilder();
+				for (Object value : row.values()) {
+					if (line.length() > 0) {
+						line.append(',');
+					}
+					line.append(value);
+				}
+				out.println(line);
+			}
+		}
+	}
+
+	/**
+	 * The timing histograms of one page class.
+	 */
+	public static class PageStats {
+
+		private final String page;
+		private final Map<String, Histogram> histograms = new LinkedHashMap<>();
+
+		PageStats(String page) {
+			this.page = page;
+			for (String metric : METRICS) {
+				histograms.put(metric, new Histogram(1, HIGHEST_TRACKABLE_MICROS, 3));
+			}
+		}
+
+		synchronized void record(String metric, double millis) {
+			long micros = Math.max(1, Math.min(Math.round(millis * 1000), HIGHEST_TRACKABLE_MICROS));
+			histograms.get(metric).recordValue(micros);
+		}
+
+		public String getPage() {
+			return page;
+		}
+
+		/**
+		 * @param metric one of METRICS
+		 * @return the number of documents the metric was read from
+		 */
+		public synchronized long getCount(String metric) {
+			return histograms.get(metric).getTotalCount();
+		}
+
+		/**
+		 * @param metric     one of METRICS
+		 * @param percentile e.g. 95.0
+		 * @return the timing at the percentile, in ms
+		 */
+		public synchronized double getPercentileMillis(String metric, double percentile) {
+			return histograms.get(metric).getValueAtPercentile(percentile) / 1000.0;
+		}
+
+		synchronized List<Map<String, Object>> toRows() {
+			List<Map<String, Object>> rows = new ArrayList<>();
+			for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+				Histogram histogram = entry.getValue();
+				if (histogram.getTotalCount() == 0) {
+					continue;
+				}
+				Map<String, Object> row = new LinkedHashMap<>();
+				row.put("page", page);
+				row.put("metric", entry.getKey());
+				row.put("count", histogram.getTotalCount());
+				row.put("meanMs", round(histogram.getMean() / 1000.0));
+				row.put("p50Ms", round(histogram.getValueAtPercentile(50) / 1000.0));
+				row.put("p75Ms", round(histogram.getValueAtPercentile(75) / 1000.0));
+				row.put("p95Ms", round(histogram.getValueAtPercentile(95) / 1000.0));
+				row.put("maxMs", round(histogram.getMaxValue() / 1000.0));
+				rows.add(row);
+			}
+			return rows;
+		}
+
+		private static double round(double value) {
+			return Math.round(value * 100) / 100.0;
+		}
+	}
+}
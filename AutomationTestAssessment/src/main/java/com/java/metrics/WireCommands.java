@@ -0,0 +1,178 @@
+package com.java.metrics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang3.ClassUtils;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WrapsDriver;
+import org.openqa.selenium.WrapsElement;
+
+import com.java.driver.replay.VirtualTime;
+
+/**
+ * Counts the WebDriver commands sent by each thread. A driver is instrumented
+ * by wrapping it in a proxy that counts every call made on it, on the elements
+ * it returns and on its navigation and options objects. Work done in the
+ * background for a thread is counted as that thread's (see countedAsCaller).
+ */
+public final class WireCommands {
+
+	private static final ThreadLocal<AtomicLong> COUNT = new ThreadLocal<AtomicLong>() {
+
+		@Override
+		protected AtomicLong initialValue() {
+			return new AtomicLong();
+		}
+	};
+
+	private static final Map<Class<?>, Class<?>[]> INTERFACES = new ConcurrentHashMap<>();
+
+	// methods returning a helper object without sending a command
+	private static final Set<String> LOCAL_ACCESSORS = new HashSet<>(Arrays.asList("navigate", "manage", "switchTo",
+			"timeouts", "window", "logs", "ime", "getKeyboard", "getMouse", "getCoordinates", "getLocalStorage",
+			"getSessionStorage"));
+
+	private WireCommands() {
+	}
+
+	/**
+	 * @return the number of commands sent by the current thread so far
+	 */
+	public static long current() {
+		return COUNT.get().get();
+	}
+
+	/**
+	 * Wraps the task so the commands it sends, on whatever thread it runs, are
+	 * counted as sent by the current thread. Used for the page loads checked in
+	 * the background, which would otherwise count for no test thread.
+	 * 
+	 * @param task
+	 * @return the task counting for the current thread
+	 */
+	public static Runnable countedAsCaller(Runnable task) {
+		final AtomicLong caller = COUNT.get();
+		return () -> {
+			AtomicLong own = COUNT.get();
+			COUNT.set(caller);
+			try {
+				task.run();
+			} finally {
+				COUNT.set(own);
+			}
+		};
+	}
+
+	/**
+	 * Wraps the driver so the commands sent through it are counted. The proxy
+	 * implements every interface of the driver (JavascriptExecutor,
+	 * TakesScreenshot, Interactive, ...) and WrapsDriver.
+	 * 
+	 * @param driver
+	 * @return the instrumented driver
+	 */
+	public static WebDriver instrument(WebDriver driver) {
+		if (Proxy.isProxyClass(driver.getClass()) && Proxy.getInvocationHandler(driver) instanceof CountingHandler) {
+			return driver;
+		}
+		return (WebDriver) wrap(driver, WrapsDriver.class);
+	}
+
+	private static Object wrap(Object target, Class<?> extra) {
+		Class<?>[] interfaces = INTERFACES.get(target.getClass());
+		if (interfaces == null) {
+			Set<Class<?>> all = new LinkedHashSet<>(ClassUtils.getAllInterfaces(target.getClass()));
+			if (extra != null) {
+				all.add(extra);
+			}
+			interfaces = all.toArray(new Class<?>[all.size()]);
+			INTERFACES.put(target.getClass(), interfaces);
+		}
+		return Proxy.newProxyInstance(WireCommands.class.getClassLoader(), interfaces, new CountingHandler(target));
+	}
+
+	private static Object wrapResult(Object result) {
+		if (result instanceof WebElement) {
+			return wrap(result, WrapsElement.class);
+		}
+		if (result instanceof List) {
+			List<Object> wrapped = new ArrayList<>();
+			for (Object item : (List<?>) result) {
+				wrapped.add(wrapResult(item));
+			}
+			return wrapped;
+		}
+		if (result instanceof Map) {
+			Map<Object, Object> wrapped = new LinkedHashMap<>();
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) result).entrySet()) {
+				wrapped.put(entry.getKey(), wrapResult(entry.getValue()));
+			}
+			return wrapped;
+		}
+		return result;
+	}
+
+	private static Object unwrap(Object value) {
+		if (value != null && Proxy.isProxyClass(value.getClass())
+				&& Proxy.getInvocationHandler(value) instanceof CountingHandler) {
+			return ((CountingHandler) Proxy.getInvocationHandler(value)).target;
+		}
+		return value;
+	}
+
+	private static class CountingHandler implements InvocationHandler {
+
+		private final Object target;
+
+		CountingHandler(Object target) {
+			this.target = target;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			if (method.getDeclaringClass() == Object.class) {
+				if (name.equals("equals")) {
+					return target.equals(unwrap(args[0]));
+				}
+				return method.invoke(target, args);
+			}
+			if (name.equals("getWrappedElement") || name.equals("getWrappedDriver")) {
+				return target;
+			}
+			if (method.getDeclaringClass() == VirtualTime.class) {
+				// the clock of a recorded or replayed session, not a command
+				return method.invoke(target, args);
+			}
+
+			Object result;
+			try {
+				result = method.invoke(target, args);
+			} catch (InvocationTargetException e) {
+				COUNT.get().incrementAndGet();
+				throw e.getCause();
+			}
+
+			if (LOCAL_ACCESSORS.contains(name) && result != null && method.getReturnType().isInterface()) {
+				// only returns a local helper object, the commands are sent through it
+				return wrap(result, null);
+			}
+			COUNT.get().incrementAndGet();
+			return wrapResult(result);
+		}
+	}
+}
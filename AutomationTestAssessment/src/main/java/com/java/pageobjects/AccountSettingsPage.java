@@ -4,6 +4,8 @@ import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.FindBy;
 
+import com.java.utils.PageReadiness;
+
 public class AccountSettingsPage extends DashboardPage {
 
 	private final String USER_INFORMATION_FORM_X = "//form[contains(@id, 'edit_user')]";
@@ -13,9 +15,10 @@ public class AccountSettingsPage extends DashboardPage {
 	private WebElement emailInput;
 
 	@Override
-	protected void waitForPageLoadComplete() {
-		waitForXPathVisibility("User Information section", USER_INFORMATION_FORM_X);
-		waitForXPathVisibility("Email input field", EMAIL_INPUT_FIELD_X);
+	protected void declareReadiness(PageReadiness readiness) {
+		super.declareReadiness(readiness);
+		readiness.requireVisible("User Information section", USER_INFORMATION_FORM_X)
+				.requireVisible("Email input field", EMAIL_INPUT_FIELD_X);
 	}
 
 	public AccountSettingsPage(WebDriver driver) {
@@ -1,64 +1,96 @@
 package com.java.pageobjects;
 
-import java.util.Arrays;
+import java.io.File;
 import java.util.List;
 
 import org.apache.commons.lang3.StringUtils;
-import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.FindBy;
 
 import com.java.abstractclass.AbstractPortalPage;
+import com.java.driver.replay.Recordings;
+import com.java.session.EnrollmentState;
+import com.java.session.SessionSnapshot;
+import com.java.utils.PageReadiness;
+import com.java.utils.XPathTemplate;
 
 public class DashboardPage extends AbstractPortalPage {
 
 	private final String HEADER_PROFILE_PIC_X = "//a[contains(@id, 'header_profile_link')]//img";
-	private final String SIDE_BAR_X = "//nav[contains(@id, 'sidenav')]";
+	private static final String SIDE_BAR_X = "//nav[contains(@id, 'sidenav')]";
 	private final String TOP_HEADER_X = "//header[contains(@id, 'main_header')]";
 	private final String BOOKMARK_ICON_X = TOP_HEADER_X + "//li[ .//i[contains(@class , 'bookmark')]]";
 
-	private final String MENU_LINK_X = "//div[contains(@class, 'menu-body')]//li//a[contains(. , 'Menu_Link_Name')]";
-	private final String SIDE_BAR_LINK_NAME_X = SIDE_BAR_X + "//li//a[contains(. , 'Sidebar_Link_Name')]";
+	private static final String DASHBOARD_PATH = Routes.DASHBOARD;
+	// a light page of the portal domain, cookies can only be set for the current domain
+	private static final String COOKIE_DOMAIN_PATH = "/robots.txt";
+	// only one thread logs in through the UI, the others wait for its snapshot
+	private static final Object SESSION_LOCK = new Object();
+
+	private static final XPathTemplate MENU_LINK_X = new XPathTemplate(
+			"//div[contains(@class, 'menu-body')]//li//a[contains(. , {0})]");
+	private static final XPathTemplate SIDE_BAR_LINK_NAME_X = new XPathTemplate(
+			SIDE_BAR_X + "//li//a[contains(. , {0})]");
 
 	public enum MenuLinks {
 
-		View_Profile("View Profile"), 
-		Account_Settings("Account Settings"), 
-		Training_Setup("Training Setup"),
-		Upgrade_to_Red("Upgrade to Red"), 
-		Sign_out("Sign out");
+		View_Profile("View Profile", null), 
+		Account_Settings("Account Settings", Routes.ACCOUNT_SETTINGS), 
+		Training_Setup("Training Setup", Routes.TRAINING_SETUP),
+		Upgrade_to_Red("Upgrade to Red", null), 
+		Sign_out("Sign out", null);
 
 		String text;
+		String path;
 
-		MenuLinks(String value) {
+		MenuLinks(String value, String path) {
 			this.text = value;
+			this.path = path;
 		}
 
 		public String getValue() {
 			return text;
 		}
+
+		/**
+		 * @return the URL path the link leads to or null if it can't be opened
+		 *         directly
+		 */
+		public String getPath() {
+			return path;
+		}
 	}
 
 	public enum SidebarLinks {
 
-		Dashboard("Dashboard"), 
-		Kata("Kata"), 
-		Docs("Docs"), 
-		Blog("Blog"), 
-		Kumite("Kumite"), 
-		Forum("Forum"),
-		Leaders("Leaders");
+		Dashboard("Dashboard", Routes.DASHBOARD), 
+		Kata("Kata", Routes.KATA_SEARCH), 
+		Docs("Docs", null), 
+		Blog("Blog", null), 
+		Kumite("Kumite", Routes.KUMITE), 
+		Forum("Forum", null),
+		Leaders("Leaders", Routes.LEADERBOARD);
 
 		String text;
+		String path;
 
-		SidebarLinks(String value) {
+		SidebarLinks(String value, String path) {
 			this.text = value;
+			this.path = path;
 		}
 
 		public String getValue() {
 			return text;
 		}
+
+		/**
+		 * @return the URL path the link leads to or null if it can't be opened
+		 *         directly
+		 */
+		public String getPath() {
+			return path;
+		}
 	}
 
 	@FindBy(xpath = HEADER_PROFILE_PIC_X)
@@ -74,10 +106,70 @@ public class DashboardPage extends AbstractPortalPage {
 		super(driver);
 	}
 
+	/**
+	 * Opens the dashboard of a logged in user. The session saved by a previous
+	 * login is injected into the driver when it is still valid, otherwise the user
+	 * logs in through the login page and the new session is saved for the next
+	 * drivers. Recorded and replayed sessions always log in through the UI.
+	 * 
+	 * @param driver
+	 * @return DashboardPage
+	 * @throws Exception
+	 */
+	public static DashboardPage getPage(WebDriver driver) throws Exception {
+		if (Recordings.isActive()) {
+			return HomePage.getPage(driver).clickLoginLink().login();
+		}
+		File sessionFile = SessionSnapshot.getDefaultFile();
+		DashboardPage dashboardPage = openWithSavedSession(driver, sessionFile);
+
+		if (dashboardPage == null) {
+			synchronized (SESSION_LOCK) {
+				// another thread may have logged in while this one was waiting
+				dashboardPage = openWithSavedSession(driver, sessionFile);
+				if (dashboardPage == null) {
+					dashboardPage = HomePage.getPage(driver).clickLoginLink().login();
+					// the session is complete once the dashboard is loaded
+					dashboardPage.awaitPageLoad();
+					SessionSnapshot.capture(driver, BASE_URL).save(sessionFile);
+				}
+			}
+		}
+		return dashboardPage;
+	}
+
+	/**
+	 * Injects the saved session and opens the dashboard.
+	 * 
+	 * @param driver
+	 * @param sessionFile
+	 * @return DashboardPage or null if there is no valid session saved
+	 */
+	private static DashboardPage openWithSavedSession(WebDriver driver, File sessionFile) throws Exception {
+		SessionSnapshot snapshot = SessionSnapshot.load(sessionFile);
+		if (snapshot == null || !snapshot.isValidFor(BASE_URL)) {
+			return null;
+		}
+
+		// the check of the page the driver was on must not run against the next one
+		AbstractPortalPage.awaitPageLoads(driver);
+		driver.get(BASE_URL + COOKIE_DOMAIN_PATH);
+		snapshot.restore(driver);
+		driver.get(BASE_URL + DASHBOARD_PATH);
+
+		// a session the portal no longer accepts is redirected to the login page
+		if (!StringUtils.contains(driver.getCurrentUrl(), DASHBOARD_PATH)) {
+			sessionFile.delete();
+			driver.manage().deleteAllCookies();
+			return null;
+		}
+		return AbstractPortalPage.getPage(driver, DashboardPage.class);
+	}
+
 	@Override
-	protected void waitForPageLoadComplete() {
-		waitForXPathVisibility("Header profile pic", HEADER_PROFILE_PIC_X);
-		waitForXPathVisibility("Navigation bar on left side", SIDE_BAR_X);
+	protected void declareReadiness(PageReadiness readiness) {
+		readiness.requireVisible("Header profile pic", HEADER_PROFILE_PIC_X)
+				.requireVisible("Navigation bar on left side", SIDE_BAR_X);
 	}
 
 	/**
@@ -90,8 +182,8 @@ public class DashboardPage extends AbstractPortalPage {
 	public <T> T clickMenuLink(MenuLinks menuLink, Class<T> proxy) throws Exception {
 		hover("Header profile picture", profilePicture);
 
-		String menuLinkXpath = StringUtils.replace(MENU_LINK_X, "Menu_Link_Name", menuLink.getValue());
-		WebElement menuLinkEle = waitForXPathVisibility("Menu link " + menuLink.getValue(), menuLinkXpath);
+		WebElement menuLinkEle = waitForXPathVisibility("Menu link " + menuLink.getValue(), MENU_LINK_X,
+				menuLink.getValue());
 
 		return click("Menu link " + menuLink.getValue(), menuLinkEle, proxy);
 	}
@@ -106,25 +198,97 @@ public class DashboardPage extends AbstractPortalPage {
 	public <T> T clickSidebarMenuLink(SidebarLinks sidebarLink, Class<T> proxy) throws Exception {
 		hover("Side navigation bar", sideBar);
 
-		String sidebarLinkXpath = StringUtils.replace(SIDE_BAR_LINK_NAME_X, "Sidebar_Link_Name",
-				sidebarLink.getValue());
-		WebElement sidebarLinkEle = waitForXPathVisibility("Sidebar link " + sidebarLink.getValue(), sidebarLinkXpath);
+		WebElement sidebarLinkEle = waitForXPathVisibility("Sidebar link " + sidebarLink.getValue(),
+				SIDE_BAR_LINK_NAME_X, sidebarLink.getValue());
 
 		return click("Side bar nav link " + sidebarLink.getValue(), sidebarLinkEle, proxy);
 	}
 
 	/**
-	 * Returns list of enrolled courses after hovering over the bookmark icon.
+	 * Opens the page the menu link leads to by its URL, without going through the
+	 * menu. Links without a route are clicked through the menu.
+	 * 
+	 * @param menuLink
+	 * @param proxy
+	 * @throws Exception
+	 */
+	public <T> T navigateTo(MenuLinks menuLink, Class<T> proxy) throws Exception {
+		if (menuLink.getPath() == null) {
+			return clickMenuLink(menuLink, proxy);
+		}
+		return open(menuLink.getPath(), proxy);
+	}
+
+	/**
+	 * Opens the page the side bar link leads to by its URL, without going through
+	 * the side bar. Links without a route are clicked through the side bar.
+	 * 
+	 * @param sidebarLink
+	 * @param proxy
+	 * @throws Exception
+	 */
+	public <T> T navigateTo(SidebarLinks sidebarLink, Class<T> proxy) throws Exception {
+		if (sidebarLink.getPath() == null) {
+			return clickSidebarMenuLink(sidebarLink, proxy);
+		}
+		return open(sidebarLink.getPath(), proxy);
+	}
+
+	/**
+	 * Opens the page by its URL (see Routes) and waits for it to be ready. Use
+	 * clickMenuLink or clickSidebarMenuLink to test the menus themselves.
+	 * 
+	 * @param proxy
+	 * @throws Exception
+	 */
+	public <T> T navigateTo(Class<T> proxy) throws Exception {
+		String path = Routes.pathOf(proxy);
+		if (path == null) {
+			StringBuffer error = new StringBuffer();
+			error.append("There is no route to the ");
+			error.append(proxy.getSimpleName());
+			error.append(" page.");
+			throw new IllegalArgumentException(error.toString());
+		}
+		return open(path, proxy);
+	}
+
+	private <T> T open(String path, Class<T> proxy) throws Exception {
+		awaitPageLoad();
+		driver.get(BASE_URL + path);
+		return getPage(driver, proxy);
+	}
+
+	/**
+	 * Returns list of enrolled courses after hovering over the bookmark icon. The
+	 * page is only reloaded when the menu misses an enrollment made in this
+	 * session or was last confirmed too long ago, see EnrollmentState.
 	 * 
 	 * @return List<String>
 	 */
 	public List<String> getEnrolledCourses() {
-		refresh();
+		EnrollmentState state = EnrollmentState.of(driver);
+		if (state.isStale()) {
+			refresh();
+			List<String> courses = readEnrolledCourses();
+			state.confirm(courses);
+			return courses;
+		}
+
+		List<String> courses = readEnrolledCourses();
+		if (!state.reconcile(courses)) {
+			// the menu was rendered before the enrollment
+			refresh();
+			courses = readEnrolledCourses();
+			state.confirm(courses);
+		}
+		return courses;
+	}
+
+	private List<String> readEnrolledCourses() {
 		hover("Bookmark icon on top header", bookmarkIcon);
 		waitForXPathVisibility("Enrolled section div", BOOKMARK_ICON_X + "//div[contains(@class, 'menu-body')]");
 
-		List<WebElement> enrolledCoursesEles = driver
-				.findElements(By.xpath(BOOKMARK_ICON_X + "//a[contains(@href, 'kata')]"));
-		return Arrays.asList(getText(enrolledCoursesEles));
+		return getTexts(BOOKMARK_ICON_X + "//a[contains(@href, 'kata')]");
 	}
 }
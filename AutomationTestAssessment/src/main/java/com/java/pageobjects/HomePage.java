@@ -4,6 +4,7 @@ import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.FindBy;
 import com.java.abstractclass.AbstractPortalPage;
+import com.java.utils.PageReadiness;
 
 public class HomePage extends AbstractPortalPage {
 
@@ -25,20 +26,22 @@ public class HomePage extends AbstractPortalPage {
 	}
 
 	@Override
-	protected void waitForPageLoadComplete() {
-		waitForXPathVisibility("Headers section", HEADER_SECTION_X);
-		waitForXPathVisibility("Login link", LOGIN_LINK_X);
-		waitForXPathVisibility("Sign up button", SIGN_UP_BUTTON_X);
+	protected void declareReadiness(PageReadiness readiness) {
+		readiness.requireVisible("Headers section", HEADER_SECTION_X)
+				.requireVisible("Login link", LOGIN_LINK_X)
+				.requireVisible("Sign up button", SIGN_UP_BUTTON_X);
 	}
 
 	/**
-	 * Navigate to the codewars homepage.
+	 * Navigate to the codewars homepage, once the page the driver was on is
+	 * loaded.
 	 * 
 	 * @param driver
 	 * @throws Exception
 	 */
 	public static HomePage getPage(WebDriver driver) throws Exception {
-		driver.get("https://www.codewars.com");
+		AbstractPortalPage.awaitPageLoads(driver);
+		driver.get(BASE_URL);
 		return AbstractPortalPage.getPage(driver, HomePage.class);
 	}
 
@@ -1,7 +1,13 @@
 package com.java.pageobjects;
 
-import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.apache.commons.lang3.StringUtils;
 import org.openqa.selenium.By;
@@ -11,6 +17,10 @@ import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.FindBy;
 
 import com.beust.jcommander.internal.Lists;
+import com.java.budgets.PerformanceBudgets;
+import com.java.session.EnrollmentState;
+import com.java.utils.PageReadiness;
+import com.java.utils.XPathTemplate;
 
 public class KataPage extends DashboardPage {
 
@@ -20,8 +30,13 @@ public class KataPage extends DashboardPage {
 
 	private final String SEARCH_RESULTS_X = "//div[contains(@class, 'list-item-kata')]";
 	private final String NUM_OF_RESULTS_X = "//p[contains(. , 'Kata Found')]";
+	private final String RESULT_LINK_X = ".//div[contains(@class, 'item-title')]//a[contains(@href, 'kata')]";
 
-	private final String BOOKMARK_COURSE_ICON_X = "//div[contains(@class, 'list-item-kata') and .//a[contains(text(), 'Course_Name')]]//a[contains(@class, 'add-code-challenge')]//i";
+	private static final XPathTemplate BOOKMARK_COURSE_ICON_X = new XPathTemplate(
+			"//div[contains(@class, 'list-item-kata') and .//a[contains(text(), {0})]]//a[contains(@class, 'add-code-challenge')]//i");
+
+	// see PerformanceBudgets, overridden with -Dbudget.KataPage.search.ms
+	private static final long SEARCH_BUDGET_SECONDS = 10;
 
 	@FindBy(xpath = SEARCH_INPUT_X)
 	private WebElement searchInput;
@@ -33,9 +48,10 @@ public class KataPage extends DashboardPage {
 	private WebElement languageSelect;
 
 	@Override
-	protected void waitForPageLoadComplete() {
-		waitForXPathVisibility("Search input", SEARCH_INPUT_X);
-		waitForXPathVisibility("Email input field", SEARCH_BUTTON_X);
+	protected void declareReadiness(PageReadiness readiness) {
+		super.declareReadiness(readiness);
+		readiness.requireVisible("Search input", SEARCH_INPUT_X)
+				.requireVisible("Search button", SEARCH_BUTTON_X);
 	}
 
 	public KataPage(WebDriver driver) {
@@ -66,12 +82,15 @@ public class KataPage extends DashboardPage {
 	 * @param text
 	 */
 	public void search(String text) {
-		WebElement numResultsEle = driver.findElement(By.xpath(NUM_OF_RESULTS_X));
+		PerformanceBudgets.Timer budget = PerformanceBudgets.start("KataPage.search", SEARCH_BUDGET_SECONDS,
+				TimeUnit.SECONDS);
+		WebElement numResultsEle = cachedElement(By.xpath(NUM_OF_RESULTS_X));
 		click("Number of results element", numResultsEle);
 		String numOfResults = getText(numResultsEle);
 		enterTextInSearchInput(text);
 		clickSearchButton();
 		waitForElementTextToChange(NUM_OF_RESULTS_X, "Number of results", numOfResults);
+		budget.stop();
 	}
 
 	/**
@@ -80,7 +99,7 @@ public class KataPage extends DashboardPage {
 	 * @return number of results
 	 */
 	public int getNumberOfResults() {
-		WebElement numResultsEle = driver.findElement(By.xpath(NUM_OF_RESULTS_X));
+		WebElement numResultsEle = cachedElement(By.xpath(NUM_OF_RESULTS_X));
 
 		String numResultsStr = StringUtils.replace(getText(numResultsEle), "Kata Found", "").trim();
 		return new Integer(numResultsStr).intValue();
@@ -105,20 +124,43 @@ public class KataPage extends DashboardPage {
 	}
 
 	/**
-	 * Returns list of course names from the search results.
+	 * Returns list of course names from the first search results. The results are
+	 * read with streamResults, so more are only loaded when the rendered ones are
+	 * fewer than the limit.
 	 * 
+	 * @param limit the maximum number of names
 	 * @return List<String>
 	 */
-	public List<String> getCourseNames() {
-
-		String xpath = SEARCH_RESULTS_X + "//div[contains(@class, 'item-title')]//a[contains(@href, 'kata')]";
+	public List<String> getCourseNames(int limit) {
 		refresh();
 		waitForXPathVisibility("Number of results", NUM_OF_RESULTS_X);
-		List<WebElement> courseNamesEles = driver.findElements(By.xpath(xpath));
-		scrollPageDown();
+		List<String> courseNames = streamResults().limit(limit).map(KataResult::getName)
+				.collect(Collectors.toList());
 		scrollPageUp();
 
-		return Arrays.asList(getText(courseNamesEles));
+		return courseNames;
+	}
+
+	/**
+	 * Iterates over the search results, scrolling to load more only when the
+	 * rendered ones are consumed. Ends when the page stops growing.
+	 * 
+	 * @return Iterator<KataResult>
+	 */
+	public Iterator<KataResult> resultsIterator() {
+		awaitPageLoad();
+		return new KataResults(driver, SEARCH_RESULTS_X, RESULT_LINK_X, getClass());
+	}
+
+	/**
+	 * Streams the search results, see resultsIterator. Use limit or findFirst to
+	 * stop loading once enough results are read.
+	 * 
+	 * @return Stream<KataResult>
+	 */
+	public Stream<KataResult> streamResults() {
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(resultsIterator(),
+				Spliterator.ORDERED | Spliterator.NONNULL), false);
 	}
 
 	/**
@@ -127,10 +169,9 @@ public class KataPage extends DashboardPage {
 	 * @param courseName
 	 */
 	public void enrollIntoCourse(String courseName) {
-		String enrollIconXpath = StringUtils.replace(BOOKMARK_COURSE_ICON_X, "Course_Name", courseName);
-		WebElement ele = driver.findElement(By.xpath(enrollIconXpath));
-		hover("Enroll into " + courseName + " course icon", ele);
-		click(courseName + " enroll icon", ele);
+		WebElement ele = cachedElement(BOOKMARK_COURSE_ICON_X.by(courseName));
+		hoverAndClick(courseName + " enroll icon", ele, ele);
+		EnrollmentState.of(driver).enrolled(courseName);
 		scrollPageUp();
 	}
 }
@@ -0,0 +1,44 @@
+package com.java.pageobjects;
+
+/**
+ * A row of the kata search results, read as text so it holds no element of
+ * the page.
+ */
+public class KataResult {
+
+	private final int index;
+	private final String name;
+	private final String url;
+
+	KataResult(int index, String name, String url) {
+		this.index = index;
+		this.name = name;
+		this.url = url;
+	}
+
+	/**
+	 * @return the position of the row in the results, from 0
+	 */
+	public int getIndex() {
+		return index;
+	}
+
+	/**
+	 * @return the kata name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the url of the kata page
+	 */
+	public String getUrl() {
+		return url;
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
@@ -0,0 +1,130 @@
+package com.java.pageobjects;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.ui.ExpectedCondition;
+import org.openqa.selenium.support.ui.WebDriverWait;
+
+import com.java.metrics.ActionMetrics;
+import com.java.utils.Waits;
+
+/**
+ * Iterates over the kata search results as the page lazily loads them. The
+ * rows are read in pages of {@value #PAGE_SIZE} by a script returning their
+ * text only, so no element is kept and only the current page is held in
+ * memory. Once the rendered rows are consumed the page is scrolled to the
+ * bottom to load more, and the iteration ends when no row was added within
+ * the load timeout (system property kata.results.load.timeout, in seconds).
+ */
+class KataResults implements Iterator<KataResult> {
+
+	static final int PAGE_SIZE = 50;
+
+	private static final long LOAD_TIMEOUT = Long.getLong("kata.results.load.timeout", 3);
+
+	private static final long POLLING_MILLIS = 200;
+
+	/*
+	 * reads at most arguments[2] rows matching the xpath in arguments[0] from the
+	 * index in arguments[1] as [name, url], the name and url being those of the
+	 * link matching the xpath in arguments[3] in the row. When there are no more
+	 * rows, scrolls to the bottom of the page for the next ones to load.
+	 */
+	private static final String READ_ROWS_JS = "var rows = document.evaluate(arguments[0], document, null,"
+			+ " XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null);"
+			+ "var from = arguments[1], max = arguments[2];"
+			+ "var page = [];"
+			+ "for (var i = from; i < rows.snapshotLength && page.length < max; i++) {"
+			+ "  var link = document.evaluate(arguments[3], rows.snapshotItem(i), null,"
+			+ "      XPathResult.FIRST_ORDERED_NODE_TYPE, null).singleNodeValue;"
+			+ "  var name = link ? (link.innerText || link.textContent || '') : '';"
+			+ "  page.push([name.replace(/\\u00a0/g, ' ').trim(), link ? String(link.href) : '']);"
+			+ "}"
+			+ "if (page.length == 0) {"
+			+ "  window.scrollTo(0, Math.max(document.body.scrollHeight, document.documentElement.scrollHeight));"
+			+ "}"
+			+ "return page;";
+
+	private final WebDriver driver;
+	private final String rowXPath;
+	private final String linkXPath;
+	private final Class<?> page;
+	private final Deque<KataResult> buffer = new ArrayDeque<>();
+	private int read;
+	private boolean exhausted;
+
+	/**
+	 * @param driver
+	 * @param rowXPath  the xpath of the result rows
+	 * @param linkXPath the xpath of the kata link, relative to a row
+	 * @param page      the page class the loads are recorded for
+	 */
+	KataResults(WebDriver driver, String rowXPath, String linkXPath, Class<?> page) {
+		this.driver = driver;
+		this.rowXPath = rowXPath;
+		this.linkXPath = linkXPath;
+		this.page = page;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (buffer.isEmpty() && !exhausted) {
+			load();
+		}
+		return !buffer.isEmpty();
+	}
+
+	@Override
+	public KataResult next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException("No more kata results after " + read + " rows.");
+		}
+		return buffer.poll();
+	}
+
+	private void load() {
+		ActionMetrics.Timer timer = ActionMetrics.start();
+		try {
+			List<?> rows = readRows();
+			if (rows.isEmpty()) {
+				WebDriverWait wait = Waits.newWait(driver, LOAD_TIMEOUT);
+				wait.pollingEvery(Duration.ofMillis(POLLING_MILLIS));
+				try {
+					rows = wait.until(new ExpectedCondition<List<?>>() {
+
+						@Override
+						public List<?> apply(WebDriver arg0) {
+							List<?> loaded = readRows();
+							return loaded.isEmpty() ? null : loaded;
+						}
+					});
+				} catch (TimeoutException e) {
+					// the page stopped growing
+					exhausted = true;
+					return;
+				}
+			}
+			for (Object row : rows) {
+				List<?> values = (List<?>) row;
+				buffer.add(new KataResult(read++, String.valueOf(values.get(0)), String.valueOf(values.get(1))));
+			}
+		} finally {
+			timer.stop(page, "loadResults", "Search results");
+		}
+	}
+
+	private List<?> readRows() {
+		Object result = ((JavascriptExecutor) driver).executeScript(READ_ROWS_JS, rowXPath, read, PAGE_SIZE,
+				linkXPath);
+		return result instanceof List ? (List<?>) result : Collections.emptyList();
+	}
+}
@@ -1,12 +1,17 @@
 package com.java.pageobjects;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.FindBy;
 import com.java.abstractclass.AbstractPortalPage;
+import com.java.budgets.PerformanceBudgets;
+import com.java.utils.PageReadiness;
 
 public class LoginPage extends AbstractPortalPage {
 
@@ -15,6 +20,9 @@ public class LoginPage extends AbstractPortalPage {
 	private final String SIGN_IN_BUTTON_X = "//button[. = 'Sign in']";
 	private final String ERROR_MSG_X = "//div[contains(@class, 'error')]";
 
+	// see PerformanceBudgets, overridden with -Dbudget.LoginPage.clickSignInButton.ms
+	private static final long SIGN_IN_BUDGET_SECONDS = 15;
+
 	@FindBy(xpath = EMAIL_INPUT_X)
 	private WebElement emailInput;
 
@@ -30,16 +38,18 @@ public class LoginPage extends AbstractPortalPage {
 
 	public final static Map<String, String> loginCredentials;
 	static {
-		loginCredentials = new HashMap<>();
-		loginCredentials.put("Email", "benchprep@sdet.com");
-		loginCredentials.put("Password", "c0d3Ch@llenge21");
+		// read-only as it is shared by tests running in parallel
+		Map<String, String> credentials = new HashMap<>();
+		credentials.put("Email", "benchprep@sdet.com");
+		credentials.put("Password", "c0d3Ch@llenge21");
+		loginCredentials = Collections.unmodifiableMap(credentials);
 	}
 
 	@Override
-	protected void waitForPageLoadComplete() {
-		waitForXPathVisibility("Email Input field", EMAIL_INPUT_X);
-		waitForXPathVisibility("Password Input field", PASSWORD_INPUT_X);
-		waitForXPathVisibility("Sign in button", SIGN_IN_BUTTON_X);
+	protected void declareReadiness(PageReadiness readiness) {
+		readiness.requireVisible("Email Input field", EMAIL_INPUT_X)
+				.requireVisible("Password Input field", PASSWORD_INPUT_X)
+				.requireVisible("Sign in button", SIGN_IN_BUTTON_X);
 	}
 
 	/**
@@ -48,7 +58,7 @@ public class LoginPage extends AbstractPortalPage {
 	 * @param email
 	 */
 	public void setEmail(String email) {
-		enterTextInInputField(emailInput, email);
+		fillForm("Email input field", Collections.singletonMap(EMAIL_INPUT_X, email));
 	}
 
 	/**
@@ -57,7 +67,7 @@ public class LoginPage extends AbstractPortalPage {
 	 * @param password
 	 */
 	public void setPassword(String password) {
-		enterTextInInputField(passwordInput, password);
+		fillForm("Password input field", Collections.singletonMap(PASSWORD_INPUT_X, password));
 	}
 
 	/**
@@ -67,7 +77,13 @@ public class LoginPage extends AbstractPortalPage {
 	 * @return DashboardPage
 	 */
 	public DashboardPage clickSignInButton() throws Exception {
-		return click("Sign in button", signInButton, DashboardPage.class);
+		PerformanceBudgets.Timer budget = PerformanceBudgets.start("LoginPage.clickSignInButton",
+				SIGN_IN_BUDGET_SECONDS, TimeUnit.SECONDS);
+		DashboardPage dashboardPage = click("Sign in button", signInButton, DashboardPage.class);
+		// with page.transitions=async the dashboard is still loading
+		dashboardPage.awaitPageLoad();
+		budget.stop();
+		return dashboardPage;
 	}
 
 	/**
@@ -114,8 +130,10 @@ public class LoginPage extends AbstractPortalPage {
 	 */
 	public DashboardPage login() throws Exception {
 		refresh();
-		setEmail(loginCredentials.get("Email"));
-		setPassword(loginCredentials.get("Password"));
+		Map<String, String> fields = new LinkedHashMap<>();
+		fields.put(EMAIL_INPUT_X, loginCredentials.get("Email"));
+		fields.put(PASSWORD_INPUT_X, loginCredentials.get("Password"));
+		fillForm("Login form", fields);
 		return clickSignInButton();
 	}
 
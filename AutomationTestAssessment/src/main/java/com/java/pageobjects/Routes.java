@@ -0,0 +1,44 @@
+package com.java.pageobjects;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The URL path of the pages that can be opened directly, relative to
+ * AbstractPortalPage.BASE_URL. Used by DashboardPage.navigateTo to skip the
+ * hover menus.
+ */
+public final class Routes {
+
+	public static final String DASHBOARD = "/dashboard";
+	public static final String KATA_SEARCH = "/kata/search";
+	public static final String KUMITE = "/kumite";
+	public static final String LEADERBOARD = "/users/leaderboard";
+	public static final String ACCOUNT_SETTINGS = "/users/edit";
+	public static final String TRAINING_SETUP = "/trainer/setup";
+	public static final String LOGIN = "/users/sign_in";
+
+	private static final Map<Class<?>, String> PAGES;
+
+	static {
+		Map<Class<?>, String> pages = new HashMap<>();
+		pages.put(HomePage.class, "/");
+		pages.put(LoginPage.class, LOGIN);
+		pages.put(DashboardPage.class, DASHBOARD);
+		pages.put(KataPage.class, KATA_SEARCH);
+		pages.put(AccountSettingsPage.class, ACCOUNT_SETTINGS);
+		PAGES = Collections.unmodifiableMap(pages);
+	}
+
+	private Routes() {
+	}
+
+	/**
+	 * @param page
+	 * @return the path of the page or null if it has no route
+	 */
+	public static String pathOf(Class<?> page) {
+		return PAGES.get(page);
+	}
+}
@@ -0,0 +1,150 @@
+package com.java.scheduling;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+/**
+ * The durations and failures of past runs, read from the files TestNG writes:
+ * the <code>duration-ms</code> of every test method in testng-results.xml and
+ * the methods included in testng-failed.xml. Methods are identified by
+ * <code>class.method</code>.
+ */
+public class DurationHistory {
+
+	private final Map<String, Long> totalMillis = new HashMap<>();
+	private final Map<String, Integer> runs = new HashMap<>();
+	private final Set<String> failed = new HashSet<>();
+
+	/**
+	 * Reads the result files, the missing ones are skipped.
+	 * 
+	 * @param results testng-results.xml files of past runs
+	 * @param failed  testng-failed.xml of the last run, may be null
+	 * @return the history
+	 */
+	public static DurationHistory load(List<File> results, File failed) {
+		DurationHistory history = new DurationHistory();
+		for (File file : results) {
+			Document document = parse(file);
+			if (document == null) {
+				continue;
+			}
+			NodeList classes = document.getElementsByTagName("class");
+			for (int i = 0; i < classes.getLength(); i++) {
+				Element cls = (Element) classes.item(i);
+				NodeList methods = cls.getElementsByTagName("test-method");
+				for (int j = 0; j < methods.getLength(); j++) {
+					Element method = (Element) methods.item(j);
+					if (!"true".equals(method.getAttribute("is-config"))
+							&& !"SKIP".equals(method.getAttribute("status"))
+							&& !method.getAttribute("duration-ms").isEmpty()) {
+						history.add(cls.getAttribute("name") + "." + method.getAttribute("name"),
+								Long.parseLong(method.getAttribute("duration-ms")));
+					}
+				}
+			}
+		}
+
+		Document document = failed == null ? null : parse(failed);
+		if (document != null) {
+			NodeList classes = document.getElementsByTagName("class");
+			for (int i = 0; i < classes.getLength(); i++) {
+				Element cls = (Element) classes.item(i);
+				NodeList includes = cls.getElementsByTagName("include");
+				for (int j = 0; j < includes.getLength(); j++) {
+					// configuration methods are listed too, they never match a test
+					history.failed.add(cls.getAttribute("name") + "." + ((Element) includes.item(j)).getAttribute("name"));
+				}
+			}
+		}
+		return history;
+	}
+
+	/**
+	 * Records a run of the method.
+	 * 
+	 * @param method
+	 * @param millis
+	 */
+	public void add(String method, long millis) {
+		totalMillis.merge(method, millis, Long::sum);
+		runs.merge(method, 1, Integer::sum);
+	}
+
+	/**
+	 * Marks the method as failed in the last run.
+	 * 
+	 * @param method
+	 */
+	public void addFailed(String method) {
+		failed.add(method);
+	}
+
+	/**
+	 * @param method
+	 * @return the mean duration of the method or -1 if it never ran
+	 */
+	public long getDuration(String method) {
+		Integer count = runs.get(method);
+		return count == null ? -1 : totalMillis.get(method) / count;
+	}
+
+	/**
+	 * @return the mean duration of all the methods, 0 without history
+	 */
+	public long getMeanDuration() {
+		long total = 0;
+		int count = 0;
+		for (Map.Entry<String, Long> entry : totalMillis.entrySet()) {
+			total += entry.getValue();
+			count += runs.get(entry.getKey());
+		}
+		return count == 0 ? 0 : total / count;
+	}
+
+	/**
+	 * @param method
+	 * @return true if the method failed in the last run
+	 */
+	public boolean hasFailed(String method) {
+		return failed.contains(method);
+	}
+
+	/**
+	 * @return the methods that failed in the last run
+	 */
+	public Set<String> getFailed() {
+		return Collections.unmodifiableSet(failed);
+	}
+
+	private static Document parse(File file) {
+		if (!file.isFile()) {
+			return null;
+		}
+		try {
+			DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+			// testng-failed.xml declares the TestNG DTD, don't download it
+			factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+			DocumentBuilder builder = factory.newDocumentBuilder();
+			return builder.parse(file);
+		} catch (ParserConfigurationException | SAXException | IOException e) {
+			System.err.println("Ignoring the unreadable test history " + file + ": " + e.getMessage());
+			return null;
+		}
+	}
+}
@@ -0,0 +1,163 @@
+package com.java.scheduling;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+import org.apache.commons.lang3.StringUtils;
+import org.testng.IMethodInstance;
+import org.testng.IMethodInterceptor;
+import org.testng.ITestContext;
+import org.testng.ITestNGMethod;
+import org.testng.Reporter;
+
+/**
+ * Orders the test methods from the durations of past runs (see
+ * DurationHistory): the methods that failed last time first, then the longest
+ * first, so parallel workers don't end up waiting for one long test started
+ * last.
+ * <p>
+ * With <code>-Dshard.count=N -Dshard.index=i</code> (0 based) only the i-th of
+ * N shards runs, for separate JVMs or agents. The history is read from
+ * <code>-Dschedule.history</code>, a comma separated list of testng-results.xml
+ * files (test-output/testng-results.xml by default), and
+ * <code>-Dschedule.failed</code> (test-output/testng-failed.xml).
+ * <p>
+ * Every shard must be computed from the same history or a method could run in
+ * two shards or in none. The shards are balanced by duration only when
+ * schedule.history is set, pointing all agents at the same files; otherwise
+ * the methods are split by a hash of their name, the same on every agent.
+ * Methods of equal duration are ordered by name so the split doesn't depend
+ * on the order TestNG lists them in.
+ */
+public class HistoryScheduler implements IMethodInterceptor {
+
+	private static final String OUTPUT = new File(System.getProperty("user.dir"), "test-output").getPath();
+
+	@Override
+	public List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
+		List<File> results = new ArrayList<>();
+		for (String path : StringUtils.split(
+				System.getProperty("schedule.history", new File(OUTPUT, "testng-results.xml").getPath()), ',')) {
+			results.add(new File(path.trim()));
+		}
+		File failed = new File(System.getProperty("schedule.failed", new File(OUTPUT, "testng-failed.xml").getPath()));
+		DurationHistory history = DurationHistory.load(results, failed);
+
+		int shardCount = Integer.getInteger("shard.count", 1);
+		int shardIndex = Integer.getInteger("shard.index", 0);
+		if (shardCount < 1 || shardIndex < 0 || shardIndex >= shardCount) {
+			StringBuffer error = new StringBuffer();
+			error.append("Invalid shard ").append(shardIndex).append(" of ").append(shardCount);
+			error.append(", shard.index must be between 0 and shard.count - 1.");
+			throw new IllegalArgumentException(error.toString());
+		}
+
+		Function<IMethodInstance, String> key = method -> keyOf(method.getMethod());
+		ToLongFunction<IMethodInstance> duration = method -> estimate(history, key.apply(method));
+		boolean shared = System.getProperty("schedule.history") != null;
+		List<List<IMethodInstance>> shards = shared || shardCount == 1 ? shard(methods, duration, key, shardCount)
+				: shardByName(methods, key, shardCount);
+		List<IMethodInstance> shard = order(shards.get(shardIndex), method -> history.hasFailed(key.apply(method)),
+				duration, key);
+
+		long total = 0;
+		for (IMethodInstance method : shard) {
+			total += duration.applyAsLong(method);
+		}
+		StringBuffer message = new StringBuffer("[HistoryScheduler] ");
+		message.append(context.getName()).append(": shard ").append(shardIndex + 1).append("/").append(shardCount);
+		message.append(", ").append(shard.size()).append(" of ").append(methods.size()).append(" methods, ");
+		message.append(total).append(" ms of tests expected");
+		if (shardCount > 1 && !shared) {
+			message.append(", split by name as schedule.history is not set");
+		}
+		Reporter.log(message.toString(), true);
+		return shard;
+	}
+
+	/**
+	 * Splits the items into shards of balanced total duration, assigning the
+	 * longest item first to the least loaded shard (LPT).
+	 * 
+	 * @param items
+	 * @param duration
+	 * @param key      the name of an item, orders the items of equal duration
+	 * @param count    the number of shards
+	 * @return the shards, some may be empty
+	 */
+	public static <T> List<List<T>> shard(List<T> items, ToLongFunction<T> duration, Function<T, String> key,
+			int count) {
+		List<T> longestFirst = new ArrayList<>(items);
+		longestFirst.sort(Comparator.comparingLong(duration).reversed().thenComparing(key));
+
+		List<List<T>> shards = new ArrayList<>();
+		long[] loads = new long[count];
+		for (int i = 0; i < count; i++) {
+			shards.add(new ArrayList<>());
+		}
+		for (T item : longestFirst) {
+			int lightest = 0;
+			for (int i = 1; i < count; i++) {
+				if (loads[i] < loads[lightest]) {
+					lightest = i;
+				}
+			}
+			shards.get(lightest).add(item);
+			loads[lightest] += duration.applyAsLong(item);
+		}
+		return shards;
+	}
+
+	/**
+	 * Splits the items into shards by a hash of their name, which doesn't depend
+	 * on the history of the machine running the shard.
+	 * 
+	 * @param items
+	 * @param key   the name of an item
+	 * @param count the number of shards
+	 * @return the shards, some may be empty
+	 */
+	public static <T> List<List<T>> shardByName(List<T> items, Function<T, String> key, int count) {
+		List<List<T>> shards = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			shards.add(new ArrayList<>());
+		}
+		for (T item : items) {
+			// String.hashCode is specified, every JVM computes the same shard
+			shards.get(Math.floorMod(key.apply(item).hashCode(), count)).add(item);
+		}
+		return shards;
+	}
+
+	/**
+	 * Orders the items failed first, then longest first, then by name.
+	 * 
+	 * @param items
+	 * @param failed
+	 * @param duration
+	 * @param key      the name of an item
+	 * @return the ordered items
+	 */
+	public static <T> List<T> order(List<T> items, Predicate<T> failed, ToLongFunction<T> duration,
+			Function<T, String> key) {
+		List<T> ordered = new ArrayList<>(items);
+		ordered.sort(Comparator.comparing((T item) -> !failed.test(item))
+				.thenComparing(Comparator.comparingLong(duration).reversed()).thenComparing(key));
+		return ordered;
+	}
+
+	private static long estimate(DurationHistory history, String method) {
+		long duration = history.getDuration(method);
+		// a new method is assumed to take as long as an average one
+		return duration < 0 ? history.getMeanDuration() : duration;
+	}
+
+	private static String keyOf(ITestNGMethod method) {
+		return method.getRealClass().getName() + "." + method.getMethodName();
+	}
+}
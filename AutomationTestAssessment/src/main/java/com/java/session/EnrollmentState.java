@@ -0,0 +1,127 @@
+package com.java.session;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.apache.commons.lang3.StringUtils;
+import org.openqa.selenium.WebDriver;
+
+import com.java.utils.Waits;
+
+/**
+ * The courses the user of a driver session is enrolled in, as known by the
+ * page objects. Enrollments are added optimistically when the enroll icon is
+ * clicked and confirmed by the next read of the bookmark menu, so the menu only
+ * has to be reloaded when it disagrees or the last confirmed read is older than
+ * the staleness window (system property enrollment.staleness.seconds), on the
+ * clock of the session so a replayed session reloads it when the recording
+ * did.
+ * <p>
+ * Sessions are thread-confined (see DriverManager), so the state of a session
+ * is only used by one thread.
+ */
+public class EnrollmentState {
+
+	/**
+	 * How long a confirmed read is trusted, in seconds.
+	 */
+	public static final long STALENESS_SECONDS = Long.getLong("enrollment.staleness.seconds", 60);
+
+	private static final Map<WebDriver, EnrollmentState> STATES = Collections.synchronizedMap(new WeakHashMap<>());
+
+	private final Set<String> confirmed = new LinkedHashSet<>();
+	private final Set<String> pending = new LinkedHashSet<>();
+	private final Clock clock;
+	private long confirmedAt;
+
+	EnrollmentState(Clock clock) {
+		this.clock = clock;
+		this.confirmedAt = clock.millis();
+	}
+
+	/**
+	 * @param driver
+	 * @return the state of the driver session
+	 */
+	public static EnrollmentState of(WebDriver driver) {
+		synchronized (STATES) {
+			EnrollmentState state = STATES.get(driver);
+			if (state == null) {
+				state = new EnrollmentState(Waits.clockOf(driver));
+				STATES.put(driver, state);
+			}
+			return state;
+		}
+	}
+
+	/**
+	 * Records an enrollment not confirmed by the bookmark menu yet.
+	 *
+	 * @param courseName
+	 */
+	public void enrolled(String courseName) {
+		pending.add(courseName);
+	}
+
+	/**
+	 * @return the confirmed and pending enrollments
+	 */
+	public List<String> getCourses() {
+		Set<String> courses = new LinkedHashSet<>(confirmed);
+		courses.addAll(pending);
+		return new ArrayList<>(courses);
+	}
+
+	/**
+	 * @return true if the last confirmed read is older than the staleness window
+	 */
+	public boolean isStale() {
+		return clock.millis() - confirmedAt > STALENESS_SECONDS * 1000;
+	}
+
+	/**
+	 * Checks the courses read from the bookmark menu against the state. They
+	 * agree when every pending enrollment is in the menu (the menu links may hold
+	 * more text than the course name), the read then becomes the confirmed state.
+	 *
+	 * @param menuCourses
+	 * @return false if an enrollment is missing from the menu
+	 */
+	public boolean reconcile(List<String> menuCourses) {
+		for (String course : pending) {
+			if (!containsCourse(menuCourses, course)) {
+				return false;
+			}
+		}
+		confirm(menuCourses);
+		return true;
+	}
+
+	/**
+	 * Replaces the state with the courses read from a freshly loaded menu, the
+	 * enrollments still pending are dropped.
+	 *
+	 * @param menuCourses
+	 */
+	public void confirm(List<String> menuCourses) {
+		confirmed.clear();
+		confirmed.addAll(menuCourses);
+		pending.clear();
+		confirmedAt = clock.millis();
+	}
+
+	private static boolean containsCourse(List<String> menuCourses, String course) {
+		for (String menuCourse : menuCourses) {
+			if (StringUtils.contains(menuCourse, course)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
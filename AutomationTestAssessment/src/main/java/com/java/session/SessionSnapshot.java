@@ -0,0 +1,161 @@
+package com.java.session;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * Cookies and local storage of an authenticated browser session. A snapshot is
+ * taken once after a UI login and saved to a file, so that later drivers
+ * (including the ones of parallel test threads) can be logged in by injecting
+ * it instead of going through the login pages.
+ */
+public class SessionSnapshot implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * How long a saved snapshot is trusted. Can be overridden with the
+	 * session.ttl.minutes system property.
+	 */
+	public static final long DEFAULT_TTL_MINUTES = 30;
+
+	private static final String READ_LOCAL_STORAGE_JS = "var items = {};"
+			+ "for (var i = 0; i < window.localStorage.length; i++) {"
+			+ "  var key = window.localStorage.key(i);"
+			+ "  items[key] = window.localStorage.getItem(key);"
+			+ "}"
+			+ "return items;";
+
+	private static final String WRITE_LOCAL_STORAGE_JS = "var items = arguments[0];"
+			+ "for (var key in items) {"
+			+ "  window.localStorage.setItem(key, items[key]);"
+			+ "}";
+
+	private final String baseUrl;
+	private final long createdAt;
+	private final HashSet<Cookie> cookies;
+	private final HashMap<String, String> localStorage;
+
+	private SessionSnapshot(String baseUrl, long createdAt, Set<Cookie> cookies, Map<String, String> localStorage) {
+		this.baseUrl = baseUrl;
+		this.createdAt = createdAt;
+		this.cookies = new HashSet<>(cookies);
+		this.localStorage = new HashMap<>(localStorage);
+	}
+
+	/**
+	 * Takes a snapshot of the session the driver is currently logged in with. The
+	 * driver has to be on a page of the portal.
+	 * 
+	 * @param driver
+	 * @param baseUrl
+	 * @return SessionSnapshot
+	 */
+	public static SessionSnapshot capture(WebDriver driver, String baseUrl) {
+		Map<String, String> items = new HashMap<>();
+		Object result = ((JavascriptExecutor) driver).executeScript(READ_LOCAL_STORAGE_JS);
+		if (result instanceof Map) {
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) result).entrySet()) {
+				items.put(String.valueOf(entry.getKey()), String.valueOf(entry.getValue()));
+			}
+		}
+		return new SessionSnapshot(baseUrl, System.currentTimeMillis(), driver.manage().getCookies(), items);
+	}
+
+	/**
+	 * Injects the cookies and local storage into the driver. The driver has to be
+	 * on a page of the portal, cookies can only be set for the current domain.
+	 * 
+	 * @param driver
+	 */
+	public void restore(WebDriver driver) {
+		WebDriver.Options options = driver.manage();
+		for (Cookie cookie : cookies) {
+			options.addCookie(cookie);
+		}
+		if (!localStorage.isEmpty()) {
+			((JavascriptExecutor) driver).executeScript(WRITE_LOCAL_STORAGE_JS, localStorage);
+		}
+	}
+
+	/**
+	 * Checks if the snapshot can still be used for the portal passed.
+	 * 
+	 * @param url the base url of the portal
+	 * @return boolean
+	 */
+	public boolean isValidFor(String url) {
+		long ageMillis = System.currentTimeMillis() - createdAt;
+		return baseUrl.equals(url) && ageMillis < TimeUnit.MINUTES.toMillis(getTtlMinutes());
+	}
+
+	/**
+	 * Saves the snapshot. The file is replaced atomically so concurrent readers
+	 * never see a partial snapshot.
+	 * 
+	 * @param file
+	 * @throws IOException
+	 */
+	public void save(File file) throws IOException {
+		File dir = file.getAbsoluteFile().getParentFile();
+		dir.mkdirs();
+		File tmp = File.createTempFile(file.getName(), ".tmp", dir);
+		try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(tmp))) {
+			out.writeObject(this);
+		}
+		Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Loads a saved snapshot.
+	 * 
+	 * @param file
+	 * @return the snapshot or null if there is none or it can't be read
+	 */
+	public static SessionSnapshot load(File file) {
+		if (!file.isFile()) {
+			return null;
+		}
+		try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(file))) {
+			return (SessionSnapshot) in.readObject();
+		} catch (IOException | ClassNotFoundException | ClassCastException e) {
+			// an unreadable snapshot is as good as a stale one
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the file snapshots are saved to. Can be overridden with the
+	 * session.file system property.
+	 * 
+	 * @return File
+	 */
+	public static File getDefaultFile() {
+		String path = System.getProperty("session.file");
+		if (path == null) {
+			path = System.getProperty("user.dir") + File.separator + ".session" + File.separator + "session-state.ser";
+		}
+		return new File(path);
+	}
+
+	private static long getTtlMinutes() {
+		return Long.getLong("session.ttl.minutes", DEFAULT_TTL_MINUTES);
+	}
+}
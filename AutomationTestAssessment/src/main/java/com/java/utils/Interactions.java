@@ -0,0 +1,194 @@
+package com.java.utils;
+
+import java.time.Clock;
+
+import org.openqa.selenium.ElementClickInterceptedException;
+import org.openqa.selenium.ElementNotInteractableException;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.interactions.Actions;
+import org.openqa.selenium.interactions.MoveTargetOutOfBoundsException;
+
+import com.java.binding.LazyWebElement;
+
+/**
+ * Single attempts of the pointer interactions of the page objects, tried from
+ * the cheapest path to the most forgiving one. The browser itself checks a
+ * native click reaches a displayed element, so only the enabled state is read
+ * before it and no clickable condition has to be polled first. Actions and a
+ * script click are only used when the native click keeps being refused.
+ * <p>
+ * The attempts return null when the element can't be used yet (not
+ * displayed, stale, ...), the caller retries them from a wait.
+ */
+public final class Interactions {
+
+	/**
+	 * The way an interaction got through, recorded in the action metrics.
+	 */
+	public enum Path {
+
+		NATIVE, ACTIONS, SCRIPT;
+
+		@Override
+		public String toString() {
+			return name().toLowerCase();
+		}
+	}
+
+	// native clicks refused in a row before trying a pointer move to the element
+	private static final int NATIVE_ATTEMPTS = 3;
+
+	/**
+	 * How long a click intercepted by another element is tried again natively,
+	 * in ms, before it is sent by script: an overlay fading out goes away, one
+	 * that stays is a page bug the test should see.
+	 */
+	public static final long INTERCEPTED_RETRY_MILLIS = Long.getLong("click.intercepted.retry.ms", 2000);
+
+	private static final String CLICK_JS = "arguments[0].click();";
+
+	private Interactions() {
+	}
+
+	/**
+	 * The click attempts made on an element by one action. Only the native clicks
+	 * refused by the browser count towards the switch to Actions; an element that
+	 * is stale, not found yet or disabled is retried natively.
+	 */
+	public static final class ClickAttempts {
+
+		private final WebDriver driver;
+		private final WebElement element;
+		private final Clock clock;
+		// native clicks refused in a row
+		private int refused;
+		// when the clicks started being intercepted, -1 if they aren't
+		private long interceptedSince = -1;
+
+		public ClickAttempts(WebDriver driver, WebElement element) {
+			this(driver, element, Waits.clockOf(driver));
+		}
+
+		ClickAttempts(WebDriver driver, WebElement element, Clock clock) {
+			this.driver = driver;
+			this.element = element;
+			this.clock = clock;
+		}
+
+		/**
+		 * Clicks the element natively when it is enabled. An element refused
+		 * {@value #NATIVE_ATTEMPTS} times in a row is clicked with Actions, one
+		 * covered by another element (an overlay, a sticky header) is clicked by
+		 * script once it stayed covered for INTERCEPTED_RETRY_MILLIS. A disabled
+		 * element isn't clicked, the browser would ignore the click without an error.
+		 *
+		 * @return the path used, null if the element can't be clicked yet
+		 */
+		public Path tryClick() {
+			try {
+				if (!element.isEnabled()) {
+					return null;
+				}
+				if (refused < NATIVE_ATTEMPTS) {
+					element.click();
+					return Path.NATIVE;
+				}
+				new Actions(driver).click(element).perform();
+				return Path.ACTIONS;
+			} catch (ElementClickInterceptedException e) {
+				return intercepted();
+			} catch (StaleElementReferenceException e) {
+				invalidate(element);
+				return null;
+			} catch (ElementNotInteractableException e) {
+				refused++;
+				return null;
+			} catch (MoveTargetOutOfBoundsException | NoSuchElementException e) {
+				return null;
+			}
+		}
+
+		/**
+		 * Hovers over an element and clicks this one in a single action chain, so the
+		 * pair costs one command. A covered element is clicked by script as by
+		 * tryClick.
+		 *
+		 * @param hoverTarget the element to move to, may be this one
+		 * @return the path used, null if the elements can't be used yet
+		 */
+		public Path tryHoverAndClick(WebElement hoverTarget) {
+			try {
+				new Actions(driver).moveToElement(hoverTarget).click(element).perform();
+				return Path.ACTIONS;
+			} catch (ElementClickInterceptedException e) {
+				return intercepted();
+			} catch (StaleElementReferenceException e) {
+				invalidate(hoverTarget);
+				invalidate(element);
+				return null;
+			} catch (ElementNotInteractableException | MoveTargetOutOfBoundsException | NoSuchElementException e) {
+				return null;
+			}
+		}
+
+		private Path intercepted() {
+			long now = clock.millis();
+			if (interceptedSince < 0) {
+				interceptedSince = now;
+			}
+			if (now - interceptedSince < INTERCEPTED_RETRY_MILLIS) {
+				return null;
+			}
+			return clickByScript(driver, element);
+		}
+	}
+
+	/**
+	 * Moves the pointer over the element.
+	 *
+	 * @param driver
+	 * @param element
+	 * @return false if the element can't be hovered yet
+	 */
+	public static boolean tryHover(WebDriver driver, WebElement element) {
+		try {
+			new Actions(driver).moveToElement(element).perform();
+			return true;
+		} catch (StaleElementReferenceException e) {
+			invalidate(element);
+			return false;
+		} catch (ElementNotInteractableException | MoveTargetOutOfBoundsException | NoSuchElementException e) {
+			return false;
+		}
+	}
+
+	private static Path clickByScript(WebDriver driver, WebElement element) {
+		try {
+			((JavascriptExecutor) driver).executeScript(CLICK_JS, element);
+			return Path.SCRIPT;
+		} catch (StaleElementReferenceException e) {
+			invalidate(element);
+			return null;
+		}
+	}
+
+	/**
+	 * An element passed to an action chain or a script isn't called itself, so a
+	 * lazy one must be told it went stale to be located again on the next try.
+	 *
+	 * @param element
+	 * @return true if the element is located again on its next use, false if it
+	 *         is a plain element that stays stale
+	 */
+	public static boolean invalidate(WebElement element) {
+		if (element instanceof LazyWebElement) {
+			((LazyWebElement) element).invalidate();
+			return true;
+		}
+		return false;
+	}
+}
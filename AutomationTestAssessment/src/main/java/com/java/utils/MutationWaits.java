@@ -0,0 +1,228 @@
+package com.java.utils;
+
+import java.time.Clock;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.ScriptTimeoutException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+
+/**
+ * Wait engine that blocks in a single asynchronous script until a condition
+ * holds, instead of polling the browser every 500 ms. The script installs a
+ * MutationObserver and re-checks the condition on every DOM change, so a
+ * condition that becomes true is seen as soon as the DOM changes.
+ * <p>
+ * It is enabled with the system property wait.engine=mutation, WebDriverWait
+ * polling stays the default. Failed waits throw TimeoutException, like
+ * WebDriverWait, so callers handle both engines the same way. Only a script
+ * interrupted by a navigation is run again, any other error (a malformed xpath,
+ * a closed session) is thrown at once.
+ */
+public final class MutationWaits {
+
+	/**
+	 * True when the wait.engine system property selects this engine.
+	 */
+	public static final boolean ENABLED = "mutation".equalsIgnoreCase(System.getProperty("wait.engine"));
+
+	public enum Condition {
+		/** The element is displayed, the element is returned. */
+		VISIBLE,
+		/** The element is not in the DOM or is not displayed. */
+		INVISIBLE,
+		/** The element is displayed and enabled, the element is returned. */
+		CLICKABLE,
+		/** The element is not in the DOM or its text is not the text passed. */
+		TEXT_CHANGED
+	}
+
+	// extra time given to the driver so the script's own timer always fires first
+	static final long SCRIPT_TIMEOUT_MARGIN_MILLIS = 5000;
+	// pause before checking again when a navigation unloaded the document
+	static final long RETRY_PAUSE_MILLIS = 50;
+
+	/*
+	 * JavaScript function displayed(e), following WebElement.isDisplayed(): no
+	 * box, display none, visibility hidden or opacity 0 count as not displayed.
+	 */
+	static final String DISPLAYED_JS = "function displayed(e) {"
+			+ "  for (var n = e; n && n.nodeType === 1; n = n.parentElement) {"
+			+ "    var style = window.getComputedStyle(n);"
+			+ "    if (style.display === 'none' || Number(style.opacity) === 0) { return false; }"
+			+ "  }"
+			+ "  if (window.getComputedStyle(e).visibility === 'hidden') { return false; }"
+			+ "  var box = e.getBoundingClientRect();"
+			+ "  return box.width > 0 && box.height > 0;"
+			+ "}";
+
+	// answered by the script when the element waited to show up was removed
+	private static final String DETACHED = "detached";
+
+	/*
+	 * arguments: xpath, element, condition, text, timeout in ms, callback. The
+	 * element is used when it is passed, otherwise the first match of the xpath.
+	 * An element removed from the document can't become visible or clickable, the
+	 * script ends at once so it is located again. Style changes from :hover or
+	 * transitions are not DOM mutations, a 100 ms backstop check covers them.
+	 */
+	private static final String AWAIT_JS = "var xpath = arguments[0], element = arguments[1], condition = arguments[2],"
+			+ " text = arguments[3], timeout = arguments[4], done = arguments[arguments.length - 1];"
+			+ "function target() {"
+			+ "  if (element) { return element.isConnected ? element : null; }"
+			+ "  return document.evaluate(xpath, document, null, XPathResult.FIRST_ORDERED_NODE_TYPE, null)"
+			+ "      .singleNodeValue;"
+			+ "}"
+			+ DISPLAYED_JS
+			+ "function check() {"
+			+ "  if (element && !element.isConnected && (condition === 'VISIBLE' || condition === 'CLICKABLE')) {"
+			+ "    return '" + DETACHED + "';"
+			+ "  }"
+			+ "  var e = target();"
+			+ "  switch (condition) {"
+			+ "    case 'VISIBLE': return e && displayed(e) ? e : null;"
+			+ "    case 'INVISIBLE': return !e || !displayed(e);"
+			+ "    case 'CLICKABLE': return e && displayed(e) && !e.disabled ? e : null;"
+			+ "    case 'TEXT_CHANGED': return !e || (e.innerText || '').trim() !== text;"
+			+ "  }"
+			+ "  return null;"
+			+ "}"
+			+ "var result = check();"
+			+ "if (result) { done(result); return; }"
+			+ "var finished = false, observer, backstop, timer;"
+			+ "function finish(value) {"
+			+ "  if (finished) { return; }"
+			+ "  finished = true;"
+			+ "  observer.disconnect(); clearInterval(backstop); clearTimeout(timer);"
+			+ "  done(value);"
+			+ "}"
+			+ "function recheck() { var r = check(); if (r) { finish(r); } }"
+			+ "observer = new MutationObserver(recheck);"
+			+ "observer.observe(document, { childList: true, subtree: true, attributes: true, characterData: true });"
+			+ "backstop = setInterval(recheck, 100);"
+			+ "timer = setTimeout(function() { finish(null); }, timeout);";
+
+	// script timeout already configured per driver, in ms
+	private static final Map<WebDriver, Long> SCRIPT_TIMEOUTS = Collections
+			.synchronizedMap(new WeakHashMap<WebDriver, Long>());
+
+	private MutationWaits() {
+	}
+
+	/**
+	 * Waits for the first element matching the xpath to meet the condition.
+	 * 
+	 * @param driver
+	 * @param xpath
+	 * @param condition
+	 * @param text           the text for TEXT_CHANGED, ignored otherwise
+	 * @param timeoutSeconds
+	 * @return the element for VISIBLE and CLICKABLE, null otherwise
+	 * @throws TimeoutException if the condition isn't met in time
+	 */
+	public static WebElement waitForXPath(WebDriver driver, String xpath, Condition condition, String text,
+			int timeoutSeconds) {
+		return await(driver, xpath, null, condition, text, timeoutSeconds);
+	}
+
+	/**
+	 * Waits for the element to meet the condition. A lazy element (see
+	 * LazyWebElement) that went stale is located again until the timeout, other
+	 * elements throw StaleElementReferenceException.
+	 * 
+	 * @param driver
+	 * @param element
+	 * @param condition
+	 * @param timeoutSeconds
+	 * @return the element for VISIBLE and CLICKABLE, null otherwise
+	 * @throws TimeoutException if the condition isn't met in time
+	 */
+	public static WebElement waitForElement(WebDriver driver, WebElement element, Condition condition,
+			int timeoutSeconds) {
+		return await(driver, null, element, condition, null, timeoutSeconds);
+	}
+
+	private static WebElement await(WebDriver driver, String xpath, WebElement element, Condition condition,
+			String text, int timeoutSeconds) {
+		long timeoutMillis = TimeUnit.SECONDS.toMillis(timeoutSeconds);
+		Clock clock = Waits.clockOf(driver);
+		long deadline = clock.millis() + timeoutMillis;
+		ensureScriptTimeout(driver, timeoutMillis + SCRIPT_TIMEOUT_MARGIN_MILLIS);
+
+		WebDriverException lastError = null;
+		long remaining = timeoutMillis;
+		while (remaining > 0) {
+			try {
+				Object result = ((JavascriptExecutor) driver).executeAsyncScript(AWAIT_JS, xpath, element,
+						condition.name(), text, remaining);
+				if (result instanceof WebElement) {
+					return (WebElement) result;
+				}
+				if (Boolean.TRUE.equals(result)) {
+					return null;
+				}
+				if (DETACHED.equals(result)) {
+					throw new StaleElementReferenceException("The element was removed from the document.");
+				}
+				break;
+			} catch (TimeoutException e) {
+				throw e;
+			} catch (StaleElementReferenceException e) {
+				// a lazy element is located again when passed to the next script
+				if (!Interactions.invalidate(element)) {
+					throw e;
+				}
+				lastError = e;
+				Waits.sleep(driver, RETRY_PAUSE_MILLIS);
+			} catch (WebDriverException e) {
+				if (!isNavigation(e)) {
+					throw e;
+				}
+				// a navigation unloaded the document the script was waiting in
+				lastError = e;
+				Waits.sleep(driver, RETRY_PAUSE_MILLIS);
+			}
+			remaining = deadline - clock.millis();
+		}
+
+		StringBuffer error = new StringBuffer();
+		error.append("Condition ").append(condition).append(" was not met for ");
+		error.append(xpath != null ? xpath : "the element");
+		error.append(" after ").append(timeoutSeconds).append(" seconds.");
+		throw new TimeoutException(error.toString(), lastError);
+	}
+
+	/**
+	 * Tells the errors of a script interrupted by a navigation, worth checking
+	 * again on the next document, from every other error: a malformed xpath, a
+	 * closed session or an unreachable browser would only fail again until the
+	 * timeout and hide the real failure.
+	 * 
+	 * @param e the error of a wait script
+	 * @return true if the script should be run again
+	 */
+	static boolean isNavigation(WebDriverException e) {
+		if (e instanceof ScriptTimeoutException) {
+			// the page navigated before the script could answer
+			return true;
+		}
+		// chromedriver: "javascript error: document unloaded while waiting for result"
+		return StringUtils.contains(e.getMessage(), "document unloaded");
+	}
+
+	static void ensureScriptTimeout(WebDriver driver, long timeoutMillis) {
+		Long current = SCRIPT_TIMEOUTS.get(driver);
+		if (current == null || current < timeoutMillis) {
+			driver.manage().timeouts().setScriptTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+			SCRIPT_TIMEOUTS.put(driver, timeoutMillis);
+		}
+	}
+}
@@ -0,0 +1,208 @@
+package com.java.utils;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.support.ui.ExpectedCondition;
+import org.openqa.selenium.support.ui.WebDriverWait;
+
+import com.java.artifacts.FailureArtifacts;
+
+/**
+ * The elements that have to be visible for a page to be loaded. All of them are
+ * checked by a single script on each poll (or by a single MutationObserver
+ * script with wait.engine=mutation), so a page costs one wait however many
+ * elements it requires. A timeout reports every element still missing, with
+ * the screenshot and source of the page (see FailureArtifacts).
+ */
+public class PageReadiness {
+
+	/*
+	 * arguments[0] is the list of xpaths. Returns the indexes of the xpaths
+	 * without a displayed first match.
+	 */
+	private static final String MISSING_FUNCTION_JS = MutationWaits.DISPLAYED_JS
+			+ "function missing(xpaths) {"
+			+ "  var result = [];"
+			+ "  for (var i = 0; i < xpaths.length; i++) {"
+			+ "    var e = document.evaluate(xpaths[i], document, null, XPathResult.FIRST_ORDERED_NODE_TYPE, null)"
+			+ "        .singleNodeValue;"
+			+ "    if (!e || !displayed(e)) { result.push(i); }"
+			+ "  }"
+			+ "  return result;"
+			+ "}";
+
+	private static final String MISSING_JS = MISSING_FUNCTION_JS + "return missing(arguments[0]);";
+
+	// arguments: xpaths, timeout in ms, callback. Calls back with the missing indexes.
+	private static final String AWAIT_JS = MISSING_FUNCTION_JS
+			+ "var xpaths = arguments[0], timeout = arguments[1], done = arguments[arguments.length - 1];"
+			+ "var result = missing(xpaths);"
+			+ "if (result.length === 0) { done(result); return; }"
+			+ "var finished = false, observer, backstop, timer;"
+			+ "function finish(value) {"
+			+ "  if (finished) { return; }"
+			+ "  finished = true;"
+			+ "  observer.disconnect(); clearInterval(backstop); clearTimeout(timer);"
+			+ "  done(value);"
+			+ "}"
+			+ "function recheck() { var r = missing(xpaths); if (r.length === 0) { finish(r); } }"
+			+ "observer = new MutationObserver(recheck);"
+			+ "observer.observe(document, { childList: true, subtree: true, attributes: true, characterData: true });"
+			+ "backstop = setInterval(recheck, 100);"
+			+ "timer = setTimeout(function() { finish(missing(xpaths)); }, timeout);";
+
+	private final List<String> descriptions = new ArrayList<>();
+	private final List<String> xpaths = new ArrayList<>();
+
+	/**
+	 * Adds an element that has to be visible.
+	 * 
+	 * @param description
+	 * @param xpath
+	 * @return this readiness
+	 */
+	public PageReadiness requireVisible(String description, String xpath) {
+		descriptions.add(description);
+		xpaths.add(xpath);
+		return this;
+	}
+
+	/**
+	 * @return the xpaths required, in the order they were added
+	 */
+	public List<String> getXPaths() {
+		return Collections.unmodifiableList(xpaths);
+	}
+
+	/**
+	 * Waits for all required elements to be visible.
+	 * 
+	 * @param driver
+	 * @param timeoutSeconds
+	 * @param cls            the page class, for the error message
+	 */
+	public void await(WebDriver driver, int timeoutSeconds, Class<?> cls) {
+		if (xpaths.isEmpty()) {
+			return;
+		}
+
+		// the timeout of the wait, or the last navigation error it retried
+		List<WebDriverException> causes = new ArrayList<>();
+		List<Integer> missing;
+		if (MutationWaits.ENABLED) {
+			missing = awaitMutations(driver, timeoutSeconds, causes);
+		} else {
+			missing = poll(driver, timeoutSeconds, causes);
+		}
+
+		if (!missing.isEmpty()) {
+			StringBuffer error = new StringBuffer();
+			error.append("EXPECTED elements [");
+			for (int i = 0; i < missing.size(); i++) {
+				int index = missing.get(i);
+				if (i > 0) {
+					error.append("; ");
+				}
+				error.append("name: ").append(descriptions.get(index));
+				error.append(", XPATH: ").append(xpaths.get(index));
+			}
+			error.append(" ] were NOT VISIBLE on ");
+			error.append(cls.getSimpleName());
+			error.append(" after ").append(timeoutSeconds).append(" seconds.");
+			FailureArtifacts.appendTo(error, driver, cls, "waitForPageLoadComplete");
+			throw new AssertionError(error.toString(), causes.isEmpty() ? null : causes.get(causes.size() - 1));
+		}
+	}
+
+	private List<Integer> poll(WebDriver driver, int timeoutSeconds, List<WebDriverException> causes) {
+		final List<Integer> missing = new ArrayList<>(indexes());
+		final List<WebDriverException> scriptError = new ArrayList<>();
+		WebDriverWait wait = Waits.newWait(driver, timeoutSeconds);
+		try {
+			wait.until(new ExpectedCondition<Boolean>() {
+
+				@Override
+				public Boolean apply(WebDriver input) {
+					List<Integer> result;
+					try {
+						result = toIndexes(((JavascriptExecutor) input).executeScript(MISSING_JS, xpaths));
+					} catch (TimeoutException e) {
+						throw e;
+					} catch (WebDriverException e) {
+						if (!MutationWaits.isNavigation(e)) {
+							// ends the wait, which would ignore an invalid selector
+							scriptError.add(e);
+							return true;
+						}
+						// the page is still navigating, check again on the next poll
+						return false;
+					}
+					missing.clear();
+					missing.addAll(result);
+					return missing.isEmpty();
+				}
+			});
+		} catch (TimeoutException e) {
+			// reported with the elements still missing
+			causes.add(e);
+		}
+		if (!scriptError.isEmpty()) {
+			throw scriptError.get(0);
+		}
+		return missing;
+	}
+
+	private List<Integer> awaitMutations(WebDriver driver, int timeoutSeconds, List<WebDriverException> causes) {
+		long timeoutMillis = TimeUnit.SECONDS.toMillis(timeoutSeconds);
+		Clock clock = Waits.clockOf(driver);
+		long deadline = clock.millis() + timeoutMillis;
+		MutationWaits.ensureScriptTimeout(driver, timeoutMillis + MutationWaits.SCRIPT_TIMEOUT_MARGIN_MILLIS);
+
+		List<Integer> missing = indexes();
+		long remaining = timeoutMillis;
+		while (remaining > 0) {
+			try {
+				missing = toIndexes(((JavascriptExecutor) driver).executeAsyncScript(AWAIT_JS, xpaths, remaining));
+				break;
+			} catch (TimeoutException | StaleElementReferenceException e) {
+				throw e;
+			} catch (WebDriverException e) {
+				if (!MutationWaits.isNavigation(e)) {
+					throw e;
+				}
+				// a navigation unloaded the document the script was waiting in
+				causes.add(e);
+				Waits.sleep(driver, MutationWaits.RETRY_PAUSE_MILLIS);
+			}
+			remaining = deadline - clock.millis();
+		}
+		return missing;
+	}
+
+	private List<Integer> indexes() {
+		List<Integer> all = new ArrayList<>();
+		for (int i = 0; i < xpaths.size(); i++) {
+			all.add(i);
+		}
+		return all;
+	}
+
+	private static List<Integer> toIndexes(Object result) {
+		List<Integer> indexes = new ArrayList<>();
+		if (result instanceof List) {
+			for (Object index : (List<?>) result) {
+				indexes.add(((Number) index).intValue());
+			}
+		}
+		return indexes;
+	}
+}
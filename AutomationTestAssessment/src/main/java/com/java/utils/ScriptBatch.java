@@ -0,0 +1,161 @@
+package com.java.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * Queues several JavaScript reads and writes and sends them to the browser as
+ * one script, so they cost a single round-trip instead of one each.
+ * <ul>
+ * <li>A read stores the value of a JavaScript expression under a key of the
+ * results.
+ * <li>A run executes a JavaScript statement.
+ * <li>Reads and runs are executed in the order they were added. They can use
+ * the values already read through the <code>results</code> object and the
+ * arguments passed to execute through the <code>args</code> array.
+ * </ul>
+ * A batch can be built once and executed many times. It must not be modified
+ * while other threads execute it.
+ */
+public class ScriptBatch {
+
+	private final List<String> statements = new ArrayList<>();
+	private final List<String> keys = new ArrayList<>();
+	private volatile String script;
+
+	public ScriptBatch() {
+	}
+
+	/**
+	 * Queues the reads and writes of another batch.
+	 * 
+	 * @param batch
+	 * @return this batch
+	 */
+	public ScriptBatch append(ScriptBatch batch) {
+		statements.addAll(batch.statements);
+		keys.addAll(batch.keys);
+		script = null;
+		return this;
+	}
+
+	/**
+	 * Queues the read of a JavaScript expression.
+	 * 
+	 * @param key        the key of the value in the results
+	 * @param expression a JavaScript expression, e.g. "window.innerHeight"
+	 * @return this batch
+	 */
+	public ScriptBatch read(String key, String expression) {
+		if (keys.contains(key)) {
+			throw new IllegalArgumentException("Key '" + key + "' is already read by this batch.");
+		}
+		keys.add(key);
+		statements.add("results[" + quote(key) + "] = (" + expression + ");");
+		script = null;
+		return this;
+	}
+
+	/**
+	 * Queues a JavaScript statement.
+	 * 
+	 * @param statement a JavaScript statement, e.g. "window.scrollBy(0, 100)"
+	 * @return this batch
+	 */
+	public ScriptBatch run(String statement) {
+		statements.add(statement + ";");
+		script = null;
+		return this;
+	}
+
+	/**
+	 * Sends all queued reads and writes to the browser in one call.
+	 * 
+	 * @param driver
+	 * @param args   arguments available to the scripts as args[i]
+	 * @return the values read
+	 */
+	public Results execute(WebDriver driver, Object... args) {
+		Object result = ((JavascriptExecutor) driver).executeScript(toScript(), args);
+
+		Map<String, Object> values = new HashMap<>();
+		if (result instanceof Map) {
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) result).entrySet()) {
+				values.put(String.valueOf(entry.getKey()), entry.getValue());
+			}
+		}
+		return new Results(values);
+	}
+
+	/**
+	 * @return the keys read by this batch, in the order they are read
+	 */
+	public List<String> getKeys() {
+		return Collections.unmodifiableList(keys);
+	}
+
+	/**
+	 * @return the script sent to the browser by execute
+	 */
+	public String toScript() {
+		String s = script;
+		if (s == null) {
+			StringBuilder b = new StringBuilder("var args = arguments; var results = {};\n");
+			for (String statement : statements) {
+				b.append(statement).append('\n');
+			}
+			b.append("return results;");
+			s = b.toString();
+			script = s;
+		}
+		return s;
+	}
+
+	private static String quote(String value) {
+		return "'" + value.replace("\\", "\\\\").replace("'", "\\'") + "'";
+	}
+
+	/**
+	 * The values read by a batch, with typed accessors.
+	 */
+	public static class Results {
+
+		private final Map<String, Object> values;
+
+		Results(Map<String, Object> values) {
+			this.values = values;
+		}
+
+		/**
+		 * @param key
+		 * @return the value read or null
+		 */
+		public Object get(String key) {
+			return values.get(key);
+		}
+
+		/**
+		 * @param key
+		 * @return the value read as a long, 0 if it isn't a number
+		 */
+		public long getLong(String key) {
+			Object value = values.get(key);
+			return value instanceof Number ? ((Number) value).longValue() : 0L;
+		}
+
+		/**
+		 * @param key
+		 * @return the value read as a double, 0 if it isn't a number
+		 */
+		public double getDouble(String key) {
+			Object value = values.get(key);
+			return value instanceof Number ? ((Number) value).doubleValue() : 0D;
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package com.java.utils;
+
+import java.time.Clock;
+import java.time.Duration;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WrapsDriver;
+import org.openqa.selenium.support.ui.Sleeper;
+import org.openqa.selenium.support.ui.WebDriverWait;
+
+import com.java.driver.replay.VirtualTime;
+
+/**
+ * Creates the waits of the page objects. A driver running on virtual time (a
+ * recorded or replayed session) gets waits that use its clock, so a replay
+ * sees the time the recording saw and doesn't sleep. Waits written by hand
+ * read the time with clockOf and pause with sleep for the same reason.
+ */
+public final class Waits {
+
+	private static final long POLLING_MILLIS = 500;
+
+	private Waits() {
+	}
+
+	/**
+	 * @param driver
+	 * @param timeoutSeconds
+	 * @return a wait on the driver
+	 */
+	public static WebDriverWait newWait(WebDriver driver, long timeoutSeconds) {
+		VirtualTime time = virtualTimeOf(driver);
+		if (time == null) {
+			return new WebDriverWait(driver, timeoutSeconds);
+		}
+		return new WebDriverWait(driver, time.getClock(), time.getSleeper(), timeoutSeconds, POLLING_MILLIS);
+	}
+
+	/**
+	 * @param driver
+	 * @return the clock of the driver, the system clock unless it runs on
+	 *         virtual time
+	 */
+	public static Clock clockOf(WebDriver driver) {
+		VirtualTime time = virtualTimeOf(driver);
+		return time == null ? Clock.systemUTC() : time.getClock();
+	}
+
+	/**
+	 * Pauses between two checks of a wait, on the driver's time.
+	 * 
+	 * @param driver
+	 * @param millis
+	 */
+	public static void sleep(WebDriver driver, long millis) {
+		VirtualTime time = virtualTimeOf(driver);
+		Sleeper sleeper = time == null ? Sleeper.SYSTEM_SLEEPER : time.getSleeper();
+		try {
+			sleeper.sleep(Duration.ofMillis(millis));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static VirtualTime virtualTimeOf(WebDriver driver) {
+		while (!(driver instanceof VirtualTime) && driver instanceof WrapsDriver) {
+			WebDriver wrapped = ((WrapsDriver) driver).getWrappedDriver();
+			if (wrapped == driver) {
+				return null;
+			}
+			driver = wrapped;
+		}
+		return driver instanceof VirtualTime ? (VirtualTime) driver : null;
+	}
+}
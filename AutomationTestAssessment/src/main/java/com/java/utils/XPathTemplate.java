@@ -0,0 +1,185 @@
+package com.java.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openqa.selenium.By;
+
+/**
+ * An xpath with numbered placeholders, e.g.
+ * <code>//a[contains(., {0})]</code>. Arguments are inserted as escaped XPath
+ * string literals, so values containing quotes can't break the xpath. The
+ * compiled By of every (template, arguments) pair is kept in a bounded LRU
+ * cache shared by all threads, so repeated lookups don't rebuild it.
+ */
+public final class XPathTemplate {
+
+	private static final int MAX_CACHED_LOCATORS = 512;
+
+	private static final Map<Key, By> CACHE = Collections.synchronizedMap(new LinkedHashMap<Key, By>(64, 0.75f, true) {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, By> eldest) {
+			return size() > MAX_CACHED_LOCATORS;
+		}
+	});
+
+	private final String pattern;
+	// the text around the placeholders, fragments.length == placeholders.length + 1
+	private final String[] fragments;
+	private final int[] placeholders;
+
+	/**
+	 * @param pattern an xpath with placeholders {0}, {1}, ... in place of string
+	 *                literals
+	 */
+	public XPathTemplate(String pattern) {
+		this.pattern = pattern;
+
+		List<String> texts = new ArrayList<>();
+		List<Integer> indexes = new ArrayList<>();
+		int start = 0;
+		int open = pattern.indexOf('{');
+		while (open >= 0) {
+			int close = pattern.indexOf('}', open);
+			if (close < 0) {
+				break;
+			}
+			String index = pattern.substring(open + 1, close);
+			if (!index.isEmpty() && index.chars().allMatch(Character::isDigit)) {
+				texts.add(pattern.substring(start, open));
+				indexes.add(Integer.valueOf(index));
+				start = close + 1;
+			}
+			open = pattern.indexOf('{', close);
+		}
+		texts.add(pattern.substring(start));
+
+		fragments = texts.toArray(new String[texts.size()]);
+		placeholders = new int[indexes.size()];
+		for (int i = 0; i < placeholders.length; i++) {
+			placeholders[i] = indexes.get(i);
+		}
+	}
+
+	/**
+	 * Fills in the placeholders.
+	 * 
+	 * @param args the values of the placeholders
+	 * @return the xpath
+	 * @throws IllegalArgumentException if a value is missing or null
+	 */
+	public String xpath(String... args) {
+		StringBuilder b = new StringBuilder(pattern.length() + 32);
+		for (int i = 0; i < placeholders.length; i++) {
+			b.append(fragments[i]);
+			int index = placeholders[i];
+			if (index >= args.length) {
+				StringBuffer error = new StringBuffer();
+				error.append("No value passed for placeholder {").append(index).append("} of xpath ");
+				error.append(pattern);
+				throw new IllegalArgumentException(error.toString());
+			}
+			b.append(literal(args[index]));
+		}
+		b.append(fragments[fragments.length - 1]);
+		return b.toString();
+	}
+
+	/**
+	 * Returns the compiled locator for the arguments passed, from the cache when
+	 * it was already built.
+	 * 
+	 * @param args the values of the placeholders
+	 * @return By
+	 */
+	public By by(String... args) {
+		Key key = new Key(pattern, args);
+		By by = CACHE.get(key);
+		if (by == null) {
+			by = By.xpath(xpath(args));
+			// the caller owns the varargs array, the cache keeps its own copy
+			CACHE.put(new Key(pattern, args.clone()), by);
+		}
+		return by;
+	}
+
+	/**
+	 * @return the xpath with its placeholders
+	 */
+	public String getPattern() {
+		return pattern;
+	}
+
+	@Override
+	public String toString() {
+		return pattern;
+	}
+
+	/**
+	 * Converts a value to an XPath 1.0 string literal. XPath has no escape
+	 * character, so a value containing both quote types is built with concat().
+	 * 
+	 * @param value
+	 * @return the literal
+	 * @throws IllegalArgumentException if the value is null
+	 */
+	public static String literal(String value) {
+		if (value == null) {
+			throw new IllegalArgumentException("An xpath literal can't be null.");
+		}
+		if (value.indexOf('\'') < 0) {
+			return "'" + value + "'";
+		}
+		if (value.indexOf('"') < 0) {
+			return "\"" + value + "\"";
+		}
+
+		StringBuilder b = new StringBuilder("concat(");
+		int start = 0;
+		int quote = value.indexOf('\'');
+		while (quote >= 0) {
+			if (quote > start) {
+				b.append('\'').append(value, start, quote).append("', ");
+			}
+			b.append("\"'\", ");
+			start = quote + 1;
+			quote = value.indexOf('\'', start);
+		}
+		b.append('\'').append(value.substring(start)).append("')");
+		return b.toString();
+	}
+
+	private static final class Key {
+
+		private final String pattern;
+		private final String[] args;
+		private final int hash;
+
+		Key(String pattern, String[] args) {
+			this.pattern = pattern;
+			this.args = args;
+			this.hash = 31 * pattern.hashCode() + Arrays.hashCode(args);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return hash == other.hash && pattern.equals(other.pattern) && Arrays.equals(args, other.args);
+		}
+	}
+}
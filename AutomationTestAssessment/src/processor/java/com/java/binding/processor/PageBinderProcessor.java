@@ -0,0 +1,292 @@
+package com.java.binding.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates a <code>&lt;Page&gt;_Binder</code> for every concrete class with
+ * <code>@FindBy</code> fields. The binder creates the page with its
+ * <code>(WebDriver)</code> constructor and assigns each element field a
+ * LazyWebElement, as PageFactory.initElements would, without scanning the
+ * fields or creating proxies. Private fields are set through method handles
+ * the binder looks up once, when it is loaded (see PageBinders.setter).
+ * <p>
+ * Pages the binder can't set up the same way (<code>@FindBys</code>,
+ * <code>@FindAll</code>, lists of elements, no usable constructor) get no
+ * binder and a warning; they are still bound by PageFactory at run time.
+ */
+@SupportedAnnotationTypes("*")
+public class PageBinderProcessor extends AbstractProcessor {
+
+	private static final String FIND_BY = "org.openqa.selenium.support.FindBy";
+	private static final String FIND_BYS = "org.openqa.selenium.support.FindBys";
+	private static final String FIND_ALL = "org.openqa.selenium.support.FindAll";
+	private static final String CACHE_LOOKUP = "org.openqa.selenium.support.CacheLookup";
+	private static final String WEB_ELEMENT = "org.openqa.selenium.WebElement";
+	private static final String WEB_DRIVER = "org.openqa.selenium.WebDriver";
+	private static final String BY = "org.openqa.selenium.By";
+	private static final String METHOD_HANDLE = "java.lang.invoke.MethodHandle";
+
+	// the short attributes of @FindBy and the By factory method of each
+	private static final Map<String, String> SHORT_FIND_BY = new LinkedHashMap<>();
+	// the How constants and the By each one builds
+	private static final Map<String, String> HOW = new LinkedHashMap<>();
+
+	static {
+		SHORT_FIND_BY.put("id", BY + ".id");
+		SHORT_FIND_BY.put("name", BY + ".name");
+		SHORT_FIND_BY.put("className", BY + ".className");
+		SHORT_FIND_BY.put("css", BY + ".cssSelector");
+		SHORT_FIND_BY.put("tagName", BY + ".tagName");
+		SHORT_FIND_BY.put("linkText", BY + ".linkText");
+		SHORT_FIND_BY.put("partialLinkText", BY + ".partialLinkText");
+		SHORT_FIND_BY.put("xpath", BY + ".xpath");
+
+		HOW.put("CLASS_NAME", BY + ".className");
+		HOW.put("CSS", BY + ".cssSelector");
+		HOW.put("ID", BY + ".id");
+		HOW.put("ID_OR_NAME", "new org.openqa.selenium.support.ByIdOrName");
+		HOW.put("LINK_TEXT", BY + ".linkText");
+		HOW.put("NAME", BY + ".name");
+		HOW.put("PARTIAL_LINK_TEXT", BY + ".partialLinkText");
+		HOW.put("TAG_NAME", BY + ".tagName");
+		HOW.put("XPATH", BY + ".xpath");
+	}
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		for (TypeElement page : ElementFilter.typesIn(roundEnv.getRootElements())) {
+			if (page.getKind() == ElementKind.CLASS && !page.getModifiers().contains(Modifier.ABSTRACT)
+					&& hasFindBy(page)) {
+				generateBinder(page);
+			}
+		}
+		return false;
+	}
+
+	private boolean hasFindBy(TypeElement type) {
+		for (TypeElement cls = type; cls != null; cls = superclassOf(cls)) {
+			for (VariableElement field : ElementFilter.fieldsIn(cls.getEnclosedElements())) {
+				if (annotation(field, FIND_BY) != null) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private void generateBinder(TypeElement page) {
+		String pkg = packageOf(page);
+		String pageName = page.getQualifiedName().toString();
+		List<String> bindings = new ArrayList<>();
+		List<String> setters = new ArrayList<>();
+
+		for (TypeElement cls = page; cls != null; cls = superclassOf(cls)) {
+			for (VariableElement field : ElementFilter.fieldsIn(cls.getEnclosedElements())) {
+				Set<Modifier> modifiers = field.getModifiers();
+				if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.FINAL)) {
+					continue;
+				}
+				if (annotation(field, FIND_BYS) != null || annotation(field, FIND_ALL) != null) {
+					skip(page, field, "@FindBys and @FindAll are not supported");
+					return;
+				}
+				if (!isWebElement(field.asType())) {
+					if (annotation(field, FIND_BY) != null || isElementList(field.asType())) {
+						skip(page, field, "only WebElement fields are supported");
+						return;
+					}
+					continue;
+				}
+				String by = by(field);
+				if (by == null) {
+					skip(page, field, "the @FindBy has no single locator");
+					return;
+				}
+				boolean cacheLookup = annotation(field, CACHE_LOOKUP) != null;
+				String element = "new com.java.binding.LazyWebElement(driver, " + by + ", " + cacheLookup + ")";
+				if (isAccessible(field, pkg)) {
+					bindings.add("page." + field.getSimpleName() + " = " + element + ";");
+				} else {
+					// a private field, set through a handle looked up once
+					String setter = "SETTER_" + setters.size();
+					setters.add("private static final " + METHOD_HANDLE + " " + setter
+							+ " = com.java.binding.PageBinders.setter(" + cls.getQualifiedName() + ".class, "
+							+ literal(field.getSimpleName().toString()) + ");");
+					bindings.add("com.java.binding.PageBinders.set(" + setter + ", page, " + element + ");");
+				}
+			}
+		}
+
+		String constructor = constructor(page, pkg);
+		if (constructor == null) {
+			skip(page, page, "the page needs a (WebDriver) or no-argument constructor");
+			return;
+		}
+
+		String binderName = page.getSimpleName() + "_Binder";
+		StringBuilder source = new StringBuilder();
+		if (!pkg.isEmpty()) {
+			source.append("package ").append(pkg).append(";\n\n");
+		}
+		source.append("/**\n * Binds the elements of {@link ").append(pageName)
+				.append("}. Generated by PageBinderProcessor, do not edit.\n */\n");
+		source.append("public final class ").append(binderName).append(" implements com.java.binding.PageBinder<")
+				.append(pageName).append("> {\n\n");
+		for (String setter : setters) {
+			source.append("\t").append(setter).append('\n');
+		}
+		if (!setters.isEmpty()) {
+			source.append('\n');
+		}
+		source.append("\t@Override\n");
+		source.append("\tpublic ").append(pageName).append(" bind(").append(WEB_DRIVER).append(" driver) {\n");
+		source.append("\t\t").append(pageName).append(" page = ").append(constructor).append(";\n");
+		for (String binding : bindings) {
+			source.append("\t\t").append(binding).append('\n');
+		}
+		source.append("\t\treturn page;\n\t}\n}\n");
+
+		String binderQualifiedName = pkg.isEmpty() ? binderName : pkg + "." + binderName;
+		try (Writer out = processingEnv.getFiler().createSourceFile(binderQualifiedName, page).openWriter()) {
+			out.write(source.toString());
+		} catch (IOException e) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+					"Could not write " + binderQualifiedName + ": " + e.getMessage(), page);
+		}
+	}
+
+	/**
+	 * @return the Java expression of the field's By or null if the @FindBy is
+	 *         invalid. Unannotated WebElement fields are located by id or name,
+	 *         as PageFactory does.
+	 */
+	private String by(VariableElement field) {
+		AnnotationMirror findBy = annotation(field, FIND_BY);
+		if (findBy == null) {
+			return "new org.openqa.selenium.support.ByIdOrName(" + literal(field.getSimpleName().toString()) + ")";
+		}
+		Map<String, Object> values = new LinkedHashMap<>();
+		for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : findBy.getElementValues()
+				.entrySet()) {
+			values.put(entry.getKey().getSimpleName().toString(), entry.getValue().getValue());
+		}
+
+		Object how = values.get("how");
+		if (how != null && !"UNSET".equals(how.toString())) {
+			String factory = HOW.get(how.toString());
+			Object using = values.get("using");
+			return factory == null || using == null ? null : factory + "(" + literal(using.toString()) + ")";
+		}
+		String by = null;
+		for (Map.Entry<String, String> shortFindBy : SHORT_FIND_BY.entrySet()) {
+			Object value = values.get(shortFindBy.getKey());
+			if (value != null && !value.toString().isEmpty()) {
+				if (by != null) {
+					return null;
+				}
+				by = shortFindBy.getValue() + "(" + literal(value.toString()) + ")";
+			}
+		}
+		return by;
+	}
+
+	private String constructor(TypeElement page, String pkg) {
+		String noArgs = null;
+		for (ExecutableElement constructor : ElementFilter.constructorsIn(page.getEnclosedElements())) {
+			if (!isAccessible(constructor, pkg)) {
+				continue;
+			}
+			List<? extends VariableElement> parameters = constructor.getParameters();
+			if (parameters.size() == 1 && parameters.get(0).asType().toString().equals(WEB_DRIVER)) {
+				return "new " + page.getQualifiedName() + "(driver)";
+			}
+			if (parameters.isEmpty()) {
+				noArgs = "new " + page.getQualifiedName() + "()";
+			}
+		}
+		return noArgs;
+	}
+
+	private boolean isAccessible(Element member, String pkg) {
+		Set<Modifier> modifiers = member.getModifiers();
+		if (modifiers.contains(Modifier.PRIVATE)) {
+			return false;
+		}
+		return modifiers.contains(Modifier.PUBLIC) || packageOf(member).equals(pkg);
+	}
+
+	private boolean isWebElement(TypeMirror type) {
+		return type.toString().equals(WEB_ELEMENT);
+	}
+
+	private boolean isElementList(TypeMirror type) {
+		if (type.getKind() != TypeKind.DECLARED) {
+			return false;
+		}
+		List<? extends TypeMirror> arguments = ((DeclaredType) type).getTypeArguments();
+		return arguments.size() == 1 && isWebElement(arguments.get(0));
+	}
+
+	private AnnotationMirror annotation(Element element, String type) {
+		for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+			if (mirror.getAnnotationType().toString().equals(type)) {
+				return mirror;
+			}
+		}
+		return null;
+	}
+
+	private TypeElement superclassOf(TypeElement type) {
+		TypeMirror superclass = type.getSuperclass();
+		if (superclass.getKind() != TypeKind.DECLARED) {
+			return null;
+		}
+		TypeElement element = (TypeElement) ((DeclaredType) superclass).asElement();
+		return element.getQualifiedName().contentEquals(Object.class.getName()) ? null : element;
+	}
+
+	private String packageOf(Element element) {
+		PackageElement pkg = processingEnv.getElementUtils().getPackageOf(element);
+		return pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+	}
+
+	private String literal(String value) {
+		return processingEnv.getElementUtils().getConstantExpression(value);
+	}
+
+	private void skip(TypeElement page, Element element, String reason) {
+		processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+				"No binder generated for " + page.getSimpleName() + ", it is bound by PageFactory: " + reason,
+				element);
+	}
+}
@@ -4,21 +4,23 @@ import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotSame;
 import static org.testng.Assert.assertTrue;
 
+import java.lang.reflect.Method;
 import java.util.List;
-import java.util.Random;
 
 import org.apache.commons.lang3.RandomStringUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.chrome.ChromeDriver;
-import org.openqa.selenium.chrome.ChromeOptions;
 import org.testng.Assert;
+import org.testng.ITestResult;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.AfterTest;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.BeforeTest;
 import org.testng.annotations.Test;
 
+import com.java.driver.DriverFactory;
+import com.java.driver.DriverManager;
+import com.java.driver.replay.Recordings;
 import com.java.pageobjects.AccountSettingsPage;
 import com.java.pageobjects.DashboardPage;
 import com.java.pageobjects.DashboardPage.MenuLinks;
@@ -29,7 +31,18 @@ import com.java.pageobjects.LoginPage;
 
 public class CodeWarsTests {
 
-	WebDriver driver;
+	// the search results a course to enroll into is picked from
+	private static final int COURSE_CHOICES = 20;
+
+	/**
+	 * Returns the browser session owned by the thread running the test, so test
+	 * methods can run in parallel.
+	 * 
+	 * @return WebDriver
+	 */
+	protected WebDriver getDriver() {
+		return DriverManager.getDriver();
+	}
 
 	/**
 	 * Testing the Login functionality and verifying the user was able to login
@@ -39,7 +52,7 @@ public class CodeWarsTests {
 	public void testLogin() throws Exception {
 
 		// landing on codewars homepage
-		HomePage homePage = HomePage.getPage(driver);
+		HomePage homePage = HomePage.getPage(getDriver());
 
 		// clicking on login link and landing on login page
 		LoginPage loginPage = homePage.clickLoginLink();
@@ -66,12 +79,10 @@ public class CodeWarsTests {
 	public void testSearch() throws Exception {
 
 		/*
-		 * landing on codewars homepage, clicking on login link and landing on login
-		 * page
+		 * landing on codewars dashboard as a logged in user, the session saved by an
+		 * earlier login is reused when there is one
 		 */
-		HomePage homePage = HomePage.getPage(driver);
-		LoginPage loginPage = homePage.clickLoginLink();
-		DashboardPage dashboardPage = loginPage.login();
+		DashboardPage dashboardPage = DashboardPage.getPage(getDriver());
 
 		// landing on the search page
 		KataPage kataPage = dashboardPage.clickSidebarMenuLink(SidebarLinks.Kata, KataPage.class);
@@ -83,7 +94,7 @@ public class CodeWarsTests {
 		// entering random 2 alphabets and searching
 		kataPage.refresh();
 		kataPage.selectLanguage("All");
-		kataPage.search(RandomStringUtils.randomAlphabetic(2));
+		kataPage.search(randomLetters(2));
 		assertTrue(kataPage.areResultsDisplayed(), "Results are not displayed. ");
 
 		int numOfResultsAfter = kataPage.getNumberOfResults();
@@ -101,31 +112,25 @@ public class CodeWarsTests {
 	public void testEnrollInCourse() throws Exception {
 
 		/*
-		 * landing on codewars homepage, clicking on login link and landing on login
-		 * page
+		 * landing on codewars dashboard as a logged in user, the session saved by an
+		 * earlier login is reused when there is one
 		 */
-		HomePage homePage = HomePage.getPage(driver);
-		LoginPage loginPage = homePage.clickLoginLink();
-		DashboardPage dashboardPage = loginPage.login();
+		DashboardPage dashboardPage = DashboardPage.getPage(getDriver());
 
-		// landing on the search page
-		KataPage kataPage = dashboardPage.clickSidebarMenuLink(SidebarLinks.Kata, KataPage.class);
+		// landing on the search page, the side bar itself is not under test here
+		KataPage kataPage = dashboardPage.navigateTo(KataPage.class);
 
 		// entering random 2 alphabets and searching
 		kataPage.refresh();
 		kataPage.selectLanguage("All");
-		kataPage.search(RandomStringUtils.randomAlphabetic(2));
-		kataPage.scrollPageDown();
-		kataPage.scrollPageUp();
+		kataPage.search(randomLetters(2));
 
-		// getting a list of all courses on the page and selecting a random course to
-		// enroll
-		List<String> courseNamesList = kataPage.getCourseNames();
-		Random randomizer = new Random();
-		String randomCourse = courseNamesList.get(randomizer.nextInt(courseNamesList.size()));
+		// getting a list of the first courses and selecting a random course to enroll
+		List<String> courseNamesList = kataPage.getCourseNames(COURSE_CHOICES);
+		String randomCourse = courseNamesList.get(Recordings.random().nextInt(courseNamesList.size()));
 		kataPage.enrollIntoCourse(randomCourse);
 
-		dashboardPage = kataPage.clickSidebarMenuLink(SidebarLinks.Dashboard, DashboardPage.class);
+		dashboardPage = kataPage.navigateTo(DashboardPage.class);
 		List<String> enrolledCourses = dashboardPage.getEnrolledCourses();
 
 		boolean courseFound = false;
@@ -149,7 +154,7 @@ public class CodeWarsTests {
 		 * landing on codewars homepage, clicking on login link and landing on login
 		 * page
 		 */
-		HomePage homePage = HomePage.getPage(driver);
+		HomePage homePage = HomePage.getPage(getDriver());
 		LoginPage loginPage = homePage.clickLoginLink();
 
 		// entering just email, clicking Sign In and verifying error message shows up
@@ -177,39 +182,47 @@ public class CodeWarsTests {
 		 */
 		loginPage.refresh();
 		loginPage.setEmail(loginPage.loginCredentials.get("Email"));
-		loginPage.setPassword(loginPage.loginCredentials.get("Password") + RandomStringUtils.randomAlphabetic(2));
+		loginPage.setPassword(loginPage.loginCredentials.get("Password") + randomLetters(2));
 		loginPage.clickSignInButtonExpectError();
 		assertTrue(loginPage.isErrorMessageDisplayed(), "Error message not displayed, when both fields are empty. ");
 
 	}
 
 	/**
-	 * Project contains chrome drivers for both windows and mac. Based on the system
-	 * that the test is running on, it runs the correct chromedriver.
+	 * Starts the browser of the test with the profiles set by
+	 * -Dbrowser.profile (see DriverFactory), on the chromedriver for this system.
+	 * The session is recorded or replayed when a recording mode is set (see
+	 * Recordings).
 	 */
 	@BeforeMethod
-	public void runCorrectChromeDriver() {
-		String os = System.getProperty("os.name");
-
-		String propertyVal = System.getProperty("user.dir");
-		if (StringUtils.containsIgnoreCase(os, "mac")) {
-			propertyVal = StringUtils.join(propertyVal, "/chromedriver_mac");
-		} else {
-			propertyVal = StringUtils.join(propertyVal, "\\chromedriver.exe");
-		}
-		System.setProperty("webdriver.chrome.driver", propertyVal);
+	public void runCorrectChromeDriver(Method method) {
+		String session = getClass().getSimpleName() + "." + method.getName();
+		DriverManager.setDriver(Recordings.startSession(session, DriverFactory::createDriver));
+	}
 
-		// expanding the chrome window to full screen
-		ChromeOptions options = new ChromeOptions();
-		options.addArguments("--start-maximized");
-		driver = new ChromeDriver(options);
+	/**
+	 * Random letters taken from the session's generator, so a replayed session
+	 * types the same text as the recorded one.
+	 */
+	private static String randomLetters(int count) {
+		return RandomStringUtils.random(count, 0, 0, true, false, null, Recordings.random());
 	}
 
 	/**
-	 * After the test has ran, closes chrome driver.
+	 * After the test has ran, closes chrome driver. A page that failed to load in
+	 * the background without being acted on fails the test.
 	 */
 	@AfterMethod
-	public void closeDriver() {
-		driver.quit();
+	public void closeDriver(ITestResult result) {
+		try {
+			DriverManager.quitDriver();
+		} catch (AssertionError | RuntimeException e) {
+			if (result.getThrowable() != null) {
+				result.getThrowable().addSuppressed(e);
+			} else {
+				result.setStatus(ITestResult.FAILURE);
+				result.setThrowable(e);
+			}
+		}
 	}
 }
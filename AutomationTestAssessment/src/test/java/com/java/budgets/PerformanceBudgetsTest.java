@@ -0,0 +1,110 @@
+package com.java.budgets;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+import com.java.budgets.PerformanceBudgets.Mode;
+
+/**
+ * Checks the budget and regression checks of the steps and the rolling budget
+ * history.
+ */
+public class PerformanceBudgetsTest {
+
+	private static final String SETTINGS = "browser.profile=default wait.engine=polling page.transitions=sync";
+
+	private static BudgetHistory history(int runs, long... millis) {
+		List<Map<String, List<Long>>> all = new ArrayList<>();
+		for (int i = 0; i < runs; i++) {
+			List<Long> durations = new ArrayList<>();
+			for (long value : millis) {
+				durations.add(value);
+			}
+			all.add(Collections.singletonMap("search", durations));
+		}
+		return new BudgetHistory(SETTINGS, all);
+	}
+
+	/**
+	 * A step over its budget fails, under it passes.
+	 */
+	@Test
+	public void testBreachedBudgetFails() {
+		PerformanceBudgets budgets = new PerformanceBudgets(history(0), Mode.FAIL, Mode.WARN, 1.5, 3, 10);
+		budgets.record("search", 1000, 900);
+		try {
+			budgets.record("search", 1000, 1200);
+			fail("the budget was breached");
+		} catch (AssertionError e) {
+			assertEquals(e.getMessage(), "Step search took 1200 ms, over its budget of 1000 ms.");
+		}
+		assertEquals(budgets.getRun().get("search"), Arrays.asList(900L, 1200L));
+		assertEquals(budgets.getViolations(), 1);
+	}
+
+	/**
+	 * A step regressed above both the ratio and the deviations of its baseline,
+	 * only once the baseline has enough durations.
+	 */
+	@Test
+	public void testRegressionAgainstBaseline() {
+		PerformanceBudgets budgets = new PerformanceBudgets(history(4, 1000, 1100, 900), Mode.FAIL, Mode.FAIL, 1.5, 3,
+				10);
+		PerformanceBudgets.Baseline baseline = budgets.getBaseline("search");
+		assertEquals(baseline.getSamples(), 12);
+		assertEquals(baseline.getMedianMillis(), 1000);
+		// 3 deviations of 100 ms (x 1.4826) are less than half the median
+		assertEquals(baseline.getThresholdMillis(), 1500);
+
+		budgets.record("search", 10000, 1400);
+		try {
+			budgets.record("search", 10000, 3000);
+			fail("the step regressed");
+		} catch (AssertionError e) {
+			assertTrue(e.getMessage().contains("a regression against its baseline of 1000 ms"), e.getMessage());
+		}
+
+		// 9 durations are not enough to tell
+		PerformanceBudgets young = new PerformanceBudgets(history(3, 1000, 1100, 900), Mode.FAIL, Mode.FAIL, 1.5, 3,
+				10);
+		young.record("search", 10000, 3000);
+		assertEquals(young.getViolations(), 0);
+	}
+
+	/**
+	 * Only the last runs are kept and the history reads back what was written,
+	 * the runs of other settings are kept apart.
+	 */
+	@Test
+	public void testHistoryKeepsLastRuns() throws IOException {
+		BudgetHistory history = history(0);
+		for (long run = 1; run <= 4; run++) {
+			history = history.append(Collections.singletonMap("search", Collections.singletonList(run)), 3);
+		}
+		File file = new File(Files.createTempDirectory("budgets").toFile(), "budget-history.json");
+		history.write(file);
+
+		String headless = SETTINGS.replace("default", "fast");
+		BudgetHistory other = BudgetHistory.load(file, headless);
+		assertTrue(other.getRuns().isEmpty());
+		other.append(Collections.singletonMap("search", Collections.singletonList(100L)), 3).write(file);
+
+		BudgetHistory read = BudgetHistory.load(file, SETTINGS);
+		assertEquals(read.getRuns().size(), 3);
+		assertEquals(read.getSamples("search"), Arrays.asList(2L, 3L, 4L));
+		assertEquals(BudgetHistory.load(file, headless).getSamples("search"), Arrays.asList(100L));
+		assertTrue(BudgetHistory.load(new File(file.getParentFile(), "missing.json"), SETTINGS).getRuns().isEmpty());
+	}
+}
@@ -0,0 +1,52 @@
+package com.java.driver;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+/**
+ * Checks the leases of the shared browser caches and the options of the
+ * shared-cache profile.
+ */
+public class BrowserCacheTest {
+
+	/**
+	 * Live browsers get different slots, a slot given back is leased again.
+	 */
+	@Test
+	public void testLeasesFreeSlots() throws IOException {
+		File parent = Files.createTempDirectory("browser-cache").toFile();
+		try (BrowserCache first = BrowserCache.lease(parent); BrowserCache second = BrowserCache.lease(parent)) {
+			assertEquals(first.getDir(), new File(parent, "slot-0"));
+			assertEquals(second.getDir(), new File(parent, "slot-1"));
+
+			first.close();
+			try (BrowserCache third = BrowserCache.lease(parent)) {
+				assertEquals(third.getDir(), new File(parent, "slot-0"));
+			}
+		}
+	}
+
+	/**
+	 * The profile limits the cache size, with the other profiles of the run.
+	 */
+	@Test
+	public void testSharedCacheProfile() {
+		assertEquals(DriverFactory.profiles("headless, shared-cache"),
+				EnumSet.of(BrowserProfile.HEADLESS, BrowserProfile.SHARED_CACHE));
+
+		Map<?, ?> chrome = (Map<?, ?>) DriverFactory
+				.chromeOptions(EnumSet.of(BrowserProfile.DEFAULT, BrowserProfile.SHARED_CACHE)).asMap()
+				.get("goog:chromeOptions");
+		List<?> args = (List<?>) chrome.get("args");
+		assertTrue(args.contains("--disk-cache-size=" + BrowserCache.MAX_MB * 1024 * 1024), args.toString());
+	}
+}
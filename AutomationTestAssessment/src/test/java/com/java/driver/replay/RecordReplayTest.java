@@ -0,0 +1,98 @@
+package com.java.driver.replay;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.openqa.selenium.JavascriptException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.testng.annotations.Test;
+
+import com.java.metrics.WireCommands;
+import com.java.testsupport.FakeWebDriver;
+import com.java.utils.MutationWaits.Condition;
+import com.java.utils.MutationWaits;
+import com.java.utils.Waits;
+
+/**
+ * Records a session of waits that time out on the fake driver and replays it:
+ * the replay polls as many times as the recording, without sleeping.
+ */
+public class RecordReplayTest {
+
+	/**
+	 * A page that never shows up: the title never matches and every wait script
+	 * is interrupted by a navigation.
+	 */
+	public static class NavigatingDriver extends FakeWebDriver {
+
+		public NavigatingDriver() {
+			super(0);
+		}
+
+		@Override
+		public Object executeAsyncScript(String script, Object... args) {
+			super.executeAsyncScript(script, args);
+			throw new JavascriptException("javascript error: document unloaded while waiting for result");
+		}
+	}
+
+	/**
+	 * Runs the waits of the session, both time out.
+	 *
+	 * @return the number of title reads and of commands sent
+	 */
+	private static long[] waitForNothing(WebDriver session) {
+		WebDriver driver = WireCommands.instrument(session);
+		long start = WireCommands.current();
+		long[] polls = new long[2];
+		try {
+			Waits.newWait(driver, 1).until(input -> {
+				polls[0]++;
+				return "Loaded".equals(input.getTitle()) ? Boolean.TRUE : null;
+			});
+			fail("the title never matches");
+		} catch (TimeoutException e) {
+			// expected
+		}
+		try {
+			MutationWaits.waitForXPath(driver, "//div", Condition.VISIBLE, null, 1);
+			fail("the document never loads");
+		} catch (TimeoutException e) {
+			// expected
+		}
+		polls[1] = WireCommands.current() - start;
+		return polls;
+	}
+
+	/**
+	 * The replay sends the same commands as the recording, with the same wait
+	 * times, and doesn't sleep.
+	 */
+	@Test
+	public void testReplayPollsLikeTheRecording() throws IOException {
+		File file = new File(Files.createTempDirectory("recordings").toFile(), "session.jsonl.gz");
+		WebDriver recording = RecordingWebDriver.wrap(new NavigatingDriver(), file, 42);
+		long[] recorded = waitForNothing(recording);
+		recording.quit();
+
+		WebDriver replay = ReplayWebDriver.open(file);
+		long start = System.nanoTime();
+		long[] replayed = waitForNothing(replay);
+		replay.quit();
+		long millis = (System.nanoTime() - start) / 1000000;
+
+		assertTrue(recorded[0] > 1 && recorded[1] > recorded[0] + 2,
+				recorded[0] + " title reads, " + recorded[1] + " commands");
+		assertEquals(replayed[0], recorded[0]);
+		assertEquals(replayed[1], recorded[1]);
+		assertTrue(millis < 1000, "the replay slept, it took " + millis + " ms");
+		file.delete();
+		file.getParentFile().delete();
+	}
+}
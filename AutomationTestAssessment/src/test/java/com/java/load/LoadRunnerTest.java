@@ -0,0 +1,161 @@
+package com.java.load;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openqa.selenium.WebDriver;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Runs the load runner with synthetic journeys on drivers that only count
+ * themselves, and checks the stub portal serves the pages of the journeys.
+ */
+public class LoadRunnerTest {
+
+	private final AtomicInteger quits = new AtomicInteger();
+
+	@BeforeMethod
+	public void resetQuits() {
+		quits.set(0);
+	}
+
+	private WebDriver newDriver() {
+		return (WebDriver) java.lang.reflect.Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] { WebDriver.class, WebDriver.Options.class }, (proxy, method, args) -> {
+					if (method.getName().equals("manage")) {
+						return proxy;
+					}
+					if (method.getName().equals("quit")) {
+						quits.incrementAndGet();
+					}
+					if (method.getName().equals("hashCode")) {
+						return System.identityHashCode(proxy);
+					}
+					if (method.getName().equals("equals")) {
+						return proxy == args[0];
+					}
+					return null;
+				});
+	}
+
+	private static <T> T pause(T input, long millis) throws InterruptedException {
+		TimeUnit.MILLISECONDS.sleep(millis);
+		return input;
+	}
+
+	/**
+	 * Every user runs its iterations on a driver of its own, reused from one
+	 * iteration to the next, and every step is reported.
+	 */
+	@Test
+	public void testRunsIterationsOfEveryUser() throws Exception {
+		Journey<WebDriver> journey = Journey.start("journey")
+				.then("first", driver -> pause(driver, 5))
+				.then("second", driver -> pause(driver, 20));
+		AtomicInteger created = new AtomicInteger();
+		LoadRunner runner = new LoadRunner(journey, () -> {
+			created.incrementAndGet();
+			return newDriver();
+		}).users(3).iterations(4);
+
+		LoadReport report = runner.run();
+
+		assertEquals(report.getStep("first").getCount(), 12);
+		assertEquals(report.getStep("second").getCount(), 12);
+		assertEquals(report.getStep("journey").getCount(), 12);
+		assertEquals(report.getStep("journey").getErrors(), 0);
+		assertTrue(created.get() <= 3, created.get() + " drivers created for 3 users");
+		assertEquals(quits.get(), created.get(), "drivers left open");
+
+		double p50 = report.getStep("second").getPercentileMillis(50);
+		assertTrue(p50 >= 20 && p50 <= report.getStep("journey").getPercentileMillis(50), "p50 " + p50);
+	}
+
+	/**
+	 * A failing step ends its iteration, is counted as an error of the step and
+	 * of the journey, and its driver is replaced.
+	 */
+	@Test
+	public void testFailedStepEndsIterationAndReplacesDriver() throws Exception {
+		AtomicInteger runs = new AtomicInteger();
+		Journey<WebDriver> journey = Journey.start("journey")
+				.then("flaky", driver -> {
+					if (runs.incrementAndGet() % 2 == 0) {
+						throw new AssertionError("Element was not clickable.");
+					}
+					return driver;
+				})
+				.then("last", driver -> driver);
+		AtomicInteger created = new AtomicInteger();
+		LoadReport report = new LoadRunner(journey, () -> {
+			created.incrementAndGet();
+			return newDriver();
+		}).iterations(4).run();
+
+		assertEquals(report.getStep("flaky").getCount(), 2);
+		assertEquals(report.getStep("flaky").getErrors(), 2);
+		assertEquals(report.getStep("last").getCount(), 2);
+		assertEquals(report.getStep("journey").getErrors(), 2);
+		// the second and the fourth iterations failed, each on a new driver
+		assertEquals(created.get(), 2);
+		assertEquals(quits.get(), 2);
+	}
+
+	/**
+	 * The users start over the ramp-up period and an iteration starts no sooner
+	 * than the pacing interval after the previous one.
+	 */
+	@Test
+	public void testRampUpAndPacing() throws Exception {
+		Journey<WebDriver> journey = Journey.start("journey").then("step", driver -> driver);
+		LoadReport report = new LoadRunner(journey, this::newDriver).users(2).rampUp(200, TimeUnit.MILLISECONDS)
+				.pacing(100, TimeUnit.MILLISECONDS).iterations(3).run();
+
+		assertEquals(report.getStep("step").getCount(), 6);
+		// the second user starts after 100 ms, then paces two more iterations
+		assertTrue(report.getElapsedMillis() >= 300, "elapsed " + report.getElapsedMillis());
+	}
+
+	/**
+	 * The stub portal serves the pages of the journeys at their routes.
+	 */
+	@Test
+	public void testStubPortalServesRoutes() throws Exception {
+		try (StubPortal stub = new StubPortal(new File(StubPortal.DEFAULT_DIR), 0, 0)) {
+			stub.start();
+			assertTrue(get(stub.getUrl() + "/").contains("Log In"));
+			assertTrue(get(stub.getUrl() + "/users/sign_in").contains("user_password"));
+			assertTrue(get(stub.getUrl() + "/kata/search").contains("search-input"));
+			assertTrue(get(stub.getUrl() + "/portal.js").contains("main_header"));
+
+			HttpURLConnection connection = (HttpURLConnection) new URL(stub.getUrl() + "/../pom.xml")
+					.openConnection();
+			assertEquals(connection.getResponseCode(), 404);
+		}
+	}
+
+	private static String get(String url) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+		assertEquals(connection.getResponseCode(), 200, url);
+		try (InputStream in = connection.getInputStream()) {
+			ByteArrayOutputStream body = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				body.write(buffer, 0, read);
+			}
+			return new String(body.toByteArray(), StandardCharsets.UTF_8);
+		}
+	}
+}
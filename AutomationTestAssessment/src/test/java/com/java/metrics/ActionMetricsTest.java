@@ -0,0 +1,70 @@
+package com.java.metrics;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import com.java.metrics.ActionMetrics.ActionStats;
+import com.java.metrics.ActionMetrics.Timer;
+import com.java.testsupport.FakeWebDriver;
+
+/**
+ * Checks what the action timers record and export. The timers are started
+ * directly, the metrics being disabled unless metrics.enabled is set.
+ */
+public class ActionMetricsTest {
+
+	@AfterMethod
+	public void reset() {
+		ActionMetrics.reset();
+	}
+
+	/**
+	 * A timer records the commands sent while it ran and the path taken.
+	 */
+	@Test
+	public void testTimerRecordsCommandsAndPath() {
+		WebDriver driver = WireCommands.instrument(new FakeWebDriver(0));
+		for (int i = 0; i < 2; i++) {
+			Timer timer = new Timer(System.nanoTime(), WireCommands.current());
+			driver.findElement(By.xpath("//button")).click();
+			timer.stop(ActionMetricsTest.class, "click", "Sign in", i == 0 ? "native" : "script");
+		}
+
+		List<ActionStats> all = ActionMetrics.snapshot();
+		assertEquals(all.size(), 1);
+		ActionStats stats = all.get(0);
+		assertEquals(stats.getPage(), "ActionMetricsTest");
+		assertEquals(stats.getCount(), 2);
+		assertEquals(stats.getWireCommands(), 4);
+		assertEquals(stats.getPaths().get("native"), Long.valueOf(1));
+		assertEquals(stats.getPaths().get("script"), Long.valueOf(1));
+	}
+
+	/**
+	 * The export writes a CSV row per action, quoting the values with commas.
+	 */
+	@Test
+	public void testExport() throws IOException {
+		ActionMetrics.record(null, "waitForElement", "Kata, first", 2000000, 3);
+		File dir = Files.createTempDirectory("metrics").toFile();
+		ActionMetrics.export(dir);
+
+		List<String> lines = Files.readAllLines(new File(dir, "action-metrics.csv").toPath(), StandardCharsets.UTF_8);
+		assertEquals(lines.size(), 2);
+		assertTrue(lines.get(1).startsWith("<unspecified>,waitForElement,\"Kata, first\",1,3,"), lines.get(1));
+		assertTrue(new File(dir, "action-metrics.json").isFile());
+		assertEquals(ActionMetrics.snapshot().get(0).getPaths(), Collections.emptyMap());
+	}
+}
@@ -0,0 +1,84 @@
+package com.java.metrics;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+import com.java.testsupport.FakeWebDriver;
+
+/**
+ * Checks which timings of a document are recorded as it loads, read by the
+ * pages created on it.
+ */
+public class PageTimingsTest {
+
+	private static class FirstPage {
+	}
+
+	private static class SecondPage {
+	}
+
+	/**
+	 * Answers the timings script with the entries set by the test.
+	 */
+	private static class TimingsDriver extends FakeWebDriver {
+
+		private final Map<String, Object> timings = new LinkedHashMap<>();
+
+		TimingsDriver() {
+			super(0);
+		}
+
+		void navigate(double origin) {
+			timings.clear();
+			timings.put("origin", origin);
+			timings.put("ttfb", 120.0);
+			timings.put("domContentLoaded", 800.0);
+			timings.put("load", 0L);
+		}
+
+		@Override
+		public Object executeScript(String script, Object... args) {
+			if (script.contains("getEntriesByType('navigation')")) {
+				return new LinkedHashMap<>(timings);
+			}
+			return super.executeScript(script, args);
+		}
+	}
+
+	/**
+	 * A timing the document hasn't reached is recorded once a later page reads
+	 * it, under the page the document was loaded for; the others only once.
+	 */
+	@Test
+	public void testTimingsAreRecordedOncePerDocument() {
+		PageTimings.reset();
+		TimingsDriver driver = new TimingsDriver();
+		driver.navigate(1000.5);
+		PageTimings.record(driver, FirstPage.class);
+
+		PageTimings.PageStats stats = PageTimings.get("FirstPage");
+		assertEquals(stats.getCount("ttfb"), 1);
+		assertEquals(stats.getCount("load"), 0);
+
+		driver.timings.put("load", 1500.0);
+		driver.timings.put("firstContentfulPaint", 900.0);
+		PageTimings.record(driver, SecondPage.class);
+		PageTimings.record(driver, SecondPage.class);
+		assertEquals(stats.getCount("ttfb"), 1);
+		assertEquals(stats.getCount("load"), 1);
+		assertEquals(stats.getCount("firstContentfulPaint"), 1);
+		assertEquals(stats.getPercentileMillis("load", 50), 1500.0, 1.0);
+		assertNull(PageTimings.get("SecondPage"));
+
+		driver.navigate(5000.25);
+		PageTimings.record(driver, SecondPage.class);
+		assertEquals(stats.getCount("ttfb"), 1);
+		assertEquals(PageTimings.get("SecondPage").getCount("ttfb"), 1);
+		PageTimings.reset();
+	}
+}
@@ -0,0 +1,76 @@
+package com.java.metrics;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WrapsDriver;
+import org.openqa.selenium.WrapsElement;
+import org.testng.annotations.Test;
+
+import com.java.testsupport.FakeWebDriver;
+
+/**
+ * Checks the commands counted through an instrumented driver against the ones
+ * the fake driver received.
+ */
+public class WireCommandsTest {
+
+	/**
+	 * Every command is counted once, on the driver, its elements and its options,
+	 * while the accessors of the helper objects are not.
+	 */
+	@Test
+	public void testCountsTheCommandsSent() {
+		FakeWebDriver fake = new FakeWebDriver(0);
+		fake.setElementCount(3);
+		WebDriver driver = WireCommands.instrument(fake);
+		assertSame(WireCommands.instrument(driver), driver);
+		assertSame(((WrapsDriver) driver).getWrappedDriver(), fake);
+
+		long start = WireCommands.current();
+		driver.get("https://www.codewars.com");
+		driver.getTitle();
+		List<WebElement> elements = driver.findElements(By.xpath("//div"));
+		for (WebElement element : elements) {
+			assertTrue(element instanceof WrapsElement, "the element is not instrumented");
+			element.getText();
+		}
+		driver.manage().timeouts().implicitlyWait(0, TimeUnit.SECONDS);
+		driver.navigate().refresh();
+
+		assertEquals(WireCommands.current() - start, fake.getCommands());
+	}
+
+	/**
+	 * The commands of a task run on another thread count for the thread that
+	 * submitted it, not for the executor's.
+	 */
+	@Test
+	public void testCountedAsCaller() throws Exception {
+		WebDriver driver = WireCommands.instrument(new FakeWebDriver(0));
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			long start = WireCommands.current();
+			executor.submit(WireCommands.countedAsCaller(() -> driver.getTitle())).get();
+			assertEquals(WireCommands.current() - start, 1);
+
+			long executorCount = executor.submit(() -> {
+				driver.getTitle();
+				return WireCommands.current();
+			}).get();
+			assertEquals(executorCount, 1, "the caller's counter was left on the executor thread");
+			assertEquals(WireCommands.current() - start, 1);
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
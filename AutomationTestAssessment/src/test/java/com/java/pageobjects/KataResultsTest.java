@@ -0,0 +1,129 @@
+package com.java.pageobjects;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import org.openqa.selenium.support.ui.Sleeper;
+import org.testng.annotations.Test;
+
+import com.java.driver.replay.VirtualTime;
+import com.java.testsupport.FakeWebDriver;
+
+/**
+ * Iterates over the search results of a fake page rendering its rows in
+ * batches, the next batch each time it is scrolled to the bottom.
+ */
+public class KataResultsTest {
+
+	/**
+	 * A page of results rendering the next batch once scrolled, on virtual time
+	 * so waiting for rows that never come doesn't sleep.
+	 */
+	private static class ResultsDriver extends FakeWebDriver implements VirtualTime {
+
+		private final int total;
+		private final int batch;
+		private final AtomicLong now = new AtomicLong();
+		private int rendered;
+		private int reads;
+		private int scrolls;
+
+		ResultsDriver(int total, int batch) {
+			super(0);
+			this.total = total;
+			this.batch = batch;
+			this.rendered = Math.min(batch, total);
+		}
+
+		@Override
+		public Object executeScript(String script, Object... args) {
+			if (!script.contains("return page;")) {
+				return super.executeScript(script, args);
+			}
+			reads++;
+			int from = ((Number) args[1]).intValue();
+			int max = ((Number) args[2]).intValue();
+			List<Object> page = new ArrayList<>();
+			for (int i = from; i < rendered && page.size() < max; i++) {
+				page.add(Arrays.asList("Kata " + i, "https://www.codewars.com/kata/" + i));
+			}
+			if (page.isEmpty()) {
+				scrolls++;
+				rendered = Math.min(rendered + batch, total);
+			}
+			return page;
+		}
+
+		@Override
+		public Clock getClock() {
+			return new Clock() {
+
+				@Override
+				public ZoneId getZone() {
+					return ZoneOffset.UTC;
+				}
+
+				@Override
+				public Clock withZone(ZoneId zone) {
+					return this;
+				}
+
+				@Override
+				public Instant instant() {
+					return Instant.ofEpochMilli(now.get());
+				}
+			};
+		}
+
+		@Override
+		public Sleeper getSleeper() {
+			return duration -> now.addAndGet(duration.toMillis());
+		}
+	}
+
+	/**
+	 * Every row is read once, in order, loading the next batch only when the
+	 * rendered rows are consumed, until the page stops growing.
+	 */
+	@Test
+	public void testAllResultsAreReadInOrder() {
+		ResultsDriver driver = new ResultsDriver(120, 70);
+		List<KataResult> results = new ArrayList<>();
+		new KataResults(driver, "//row", ".//a", KataPage.class).forEachRemaining(results::add);
+
+		assertEquals(results.size(), 120);
+		for (int i = 0; i < results.size(); i++) {
+			assertEquals(results.get(i).getIndex(), i);
+			assertEquals(results.get(i).getName(), "Kata " + i);
+		}
+		// the end is seen once no row was added for the load timeout
+		assertTrue(driver.now.get() >= 3000, driver.now + " ms waited");
+	}
+
+	/**
+	 * A consumer stopping early doesn't scroll for more.
+	 */
+	@Test
+	public void testLimitDoesNotLoadMore() {
+		ResultsDriver driver = new ResultsDriver(500, 100);
+		Iterable<KataResult> results = () -> new KataResults(driver, "//row", ".//a", KataPage.class);
+		List<String> names = StreamSupport.stream(results.spliterator(), false).limit(10).map(KataResult::getName)
+				.collect(Collectors.toList());
+
+		assertEquals(names.size(), 10);
+		assertEquals(names.get(9), "Kata 9");
+		assertEquals(driver.reads, 1);
+		assertEquals(driver.scrolls, 0);
+	}
+}
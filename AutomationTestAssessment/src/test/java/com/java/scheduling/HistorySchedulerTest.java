@@ -0,0 +1,128 @@
+package com.java.scheduling;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+/**
+ * Checks the duration model read from TestNG result files and the shards and
+ * order built from it.
+ */
+public class HistorySchedulerTest {
+
+	private static final String RESULTS = "<testng-results><suite><test><class name=\"sample.Tests\">"
+			+ "<test-method is-config=\"true\" name=\"setUp\" duration-ms=\"900\" status=\"PASS\"/>"
+			+ "<test-method name=\"testLong\" duration-ms=\"13000\" status=\"PASS\"/>"
+			+ "<test-method name=\"testShort\" duration-ms=\"5000\" status=\"FAIL\"/>"
+			+ "<test-method name=\"testSkipped\" duration-ms=\"1\" status=\"SKIP\"/>"
+			+ "</class></test></suite></testng-results>";
+
+	private static final String FAILED = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+			+ "<!DOCTYPE suite SYSTEM \"https://testng.org/testng-1.0.dtd\">"
+			+ "<suite name=\"Failed suite\"><test name=\"failed\"><classes><class name=\"sample.Tests\"><methods>"
+			+ "<include name=\"setUp\"/><include name=\"testShort\"/>"
+			+ "</methods></class></classes></test></suite>";
+
+	/**
+	 * Durations are averaged over the result files, configuration methods and
+	 * skipped tests are left out, failed tests come from testng-failed.xml
+	 * without downloading its DTD.
+	 */
+	@Test
+	public void testHistoryIsReadFromResultFiles() throws IOException {
+		File dir = Files.createTempDirectory("history").toFile();
+		File run1 = write(dir, "run1.xml", RESULTS);
+		File run2 = write(dir, "run2.xml", RESULTS.replace("13000", "15000"));
+		File failed = write(dir, "testng-failed.xml", FAILED);
+
+		DurationHistory history = DurationHistory.load(Arrays.asList(run1, run2, new File(dir, "missing.xml")),
+				failed);
+		assertEquals(history.getDuration("sample.Tests.testLong"), 14000);
+		assertEquals(history.getDuration("sample.Tests.testShort"), 5000);
+		assertEquals(history.getDuration("sample.Tests.setUp"), -1, "A configuration method was counted. ");
+		assertEquals(history.getDuration("sample.Tests.testSkipped"), -1, "A skipped test was counted. ");
+		assertTrue(history.hasFailed("sample.Tests.testShort"));
+		assertFalse(history.hasFailed("sample.Tests.testLong"));
+
+		for (File file : dir.listFiles()) {
+			file.delete();
+		}
+		dir.delete();
+	}
+
+	/**
+	 * The longest tests are spread over the shards so their totals are close.
+	 */
+	@Test
+	public void testShardsAreBalanced() {
+		List<Long> durations = Arrays.asList(13L, 7L, 6L, 5L, 4L, 3L, 2L);
+		List<List<Long>> shards = HistoryScheduler.shard(durations, Long::longValue, String::valueOf, 2);
+
+		long first = shards.get(0).stream().mapToLong(Long::longValue).sum();
+		long second = shards.get(1).stream().mapToLong(Long::longValue).sum();
+		assertEquals(first + second, 40);
+		assertTrue(Math.abs(first - second) <= 2, "Unbalanced shards " + shards);
+		assertEquals(shards.get(0).get(0), Long.valueOf(13), "The longest test doesn't start first. ");
+	}
+
+	/**
+	 * Failed tests run first, then the longest.
+	 */
+	@Test
+	public void testFailedFirstThenLongestFirst() {
+		List<Long> ordered = HistoryScheduler.order(Arrays.asList(2L, 13L, 5L, 7L), duration -> duration == 5L,
+				Long::longValue, String::valueOf);
+		assertEquals(ordered, Arrays.asList(5L, 13L, 7L, 2L));
+		assertEquals(HistoryScheduler.order(Collections.<Long>emptyList(), duration -> true, Long::longValue,
+				String::valueOf), Collections.emptyList());
+	}
+
+	/**
+	 * Methods of equal duration are sharded and ordered by name, whatever order
+	 * they are listed in.
+	 */
+	@Test
+	public void testTiesAreBrokenByName() {
+		List<String> methods = Arrays.asList("c", "a", "d", "b");
+		List<String> reversed = Arrays.asList("b", "d", "a", "c");
+		assertEquals(HistoryScheduler.shard(methods, method -> 10, method -> method, 2),
+				HistoryScheduler.shard(reversed, method -> 10, method -> method, 2));
+		assertEquals(HistoryScheduler.order(reversed, method -> false, method -> 10, method -> method),
+				Arrays.asList("a", "b", "c", "d"));
+	}
+
+	/**
+	 * Without a shared history every method falls in exactly one shard, the same
+	 * for any order.
+	 */
+	@Test
+	public void testShardsByName() {
+		List<String> methods = Arrays.asList("Tests.testLogin", "Tests.testSearch", "Tests.testEnroll",
+				"Tests.testSettings", "Tests.testLogout");
+		List<List<String>> shards = HistoryScheduler.shardByName(methods, method -> method, 3);
+		int total = 0;
+		for (int i = 0; i < shards.size(); i++) {
+			for (String method : shards.get(i)) {
+				assertEquals(Math.floorMod(method.hashCode(), 3), i);
+			}
+			total += shards.get(i).size();
+		}
+		assertEquals(total, methods.size());
+	}
+
+	private static File write(File dir, String name, String content) throws IOException {
+		File file = new File(dir, name);
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+}
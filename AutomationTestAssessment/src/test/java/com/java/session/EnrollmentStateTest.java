@@ -0,0 +1,118 @@
+package com.java.session;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.testng.annotations.Test;
+
+import com.java.testsupport.FakeWebDriver;
+
+/**
+ * Checks when the enrollments read from the bookmark menu agree with the state
+ * and when the menu has to be reloaded.
+ */
+public class EnrollmentStateTest {
+
+	/**
+	 * A clock moved by the test.
+	 */
+	private static class TestClock extends Clock {
+
+		private long millis;
+
+		void advance(long delta) {
+			millis += delta;
+		}
+
+		@Override
+		public long millis() {
+			return millis;
+		}
+
+		@Override
+		public Instant instant() {
+			return Instant.ofEpochMilli(millis);
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+	}
+
+	/**
+	 * A pending enrollment agrees with a menu link holding its name, a missing one
+	 * keeps the state as it was.
+	 */
+	@Test
+	public void testReconcile() {
+		EnrollmentState state = new EnrollmentState(new TestClock());
+		state.confirm(Collections.singletonList("Multiply"));
+		state.enrolled("Sum of pairs");
+		assertEquals(state.getCourses(), Arrays.asList("Multiply", "Sum of pairs"));
+
+		assertFalse(state.reconcile(Collections.singletonList("Multiply")));
+		assertEquals(state.getCourses(), Arrays.asList("Multiply", "Sum of pairs"));
+
+		assertTrue(state.reconcile(Arrays.asList("Multiply", "Sum of pairs (6 kyu)")));
+		assertEquals(state.getCourses(), Arrays.asList("Multiply", "Sum of pairs (6 kyu)"));
+	}
+
+	/**
+	 * A freshly loaded menu replaces the state, the pending enrollments included.
+	 */
+	@Test
+	public void testConfirmDropsPending() {
+		EnrollmentState state = new EnrollmentState(new TestClock());
+		state.enrolled("Sum of pairs");
+		state.confirm(Collections.singletonList("Multiply"));
+		assertEquals(state.getCourses(), Collections.singletonList("Multiply"));
+		assertTrue(state.reconcile(Collections.<String>emptyList()));
+	}
+
+	/**
+	 * The state is stale once the staleness window has passed since the last
+	 * confirmed read, on the clock it was created with.
+	 */
+	@Test
+	public void testStaleness() {
+		TestClock clock = new TestClock();
+		EnrollmentState state = new EnrollmentState(clock);
+		long window = EnrollmentState.STALENESS_SECONDS * 1000;
+
+		clock.advance(window);
+		assertFalse(state.isStale());
+		clock.advance(1);
+		assertTrue(state.isStale());
+
+		assertTrue(state.reconcile(Collections.singletonList("Multiply")));
+		assertFalse(state.isStale());
+		clock.advance(window + 1);
+		assertTrue(state.isStale());
+	}
+
+	/**
+	 * Each session has its own state.
+	 */
+	@Test
+	public void testStatePerSession() {
+		FakeWebDriver driver = new FakeWebDriver(0);
+		assertSame(EnrollmentState.of(driver), EnrollmentState.of(driver));
+		assertNotSame(EnrollmentState.of(driver), EnrollmentState.of(new FakeWebDriver(0)));
+	}
+}
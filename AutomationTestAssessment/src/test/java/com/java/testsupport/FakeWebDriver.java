@@ -0,0 +1,332 @@
+package com.java.testsupport;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.interactions.Interactive;
+import org.openqa.selenium.interactions.Sequence;
+import org.openqa.selenium.logging.Logs;
+
+/**
+ * In-process WebDriver answering every command locally after a configurable
+ * simulated round-trip latency. Elements are always found and displayed, so
+ * the framework code runs its normal path without a browser.
+ * <ul>
+ * <li>findElements returns the configured number of elements.
+ * <li>Scripts get a plausible answer from their shape: ScriptBatch results
+ * ("results['key'] = ..."), text lists ("return texts;"), readiness checks
+ * ("return missing(...)") and form fields, which are always empty ("return
+ * fields;").
+ * <li>Elements found with an xpath containing "select" are drop downs with the
+ * options passed to setOptions.
+ * </ul>
+ */
+public class FakeWebDriver implements WebDriver, JavascriptExecutor, Interactive {
+
+	private static final Pattern BATCH_KEY = Pattern.compile("results\\['([^']+)'\\] =");
+
+	private final long latencyNanos;
+	private int elementCount = 20;
+	private List<String> options = Arrays.asList("All", "Java", "Python");
+	private String currentUrl = "about:blank";
+	private long commands;
+
+	/**
+	 * @param latencyMicros simulated round-trip time of every command
+	 */
+	public FakeWebDriver(long latencyMicros) {
+		this.latencyNanos = TimeUnit.MICROSECONDS.toNanos(latencyMicros);
+	}
+
+	/**
+	 * @param count the number of elements returned by findElements
+	 */
+	public void setElementCount(int count) {
+		this.elementCount = count;
+	}
+
+	/**
+	 * @param options the option texts of drop downs
+	 */
+	public void setOptions(List<String> options) {
+		this.options = options;
+	}
+
+	List<String> getOptions() {
+		return options;
+	}
+
+	/**
+	 * @return the number of commands received
+	 */
+	public long getCommands() {
+		return commands;
+	}
+
+	/**
+	 * Simulates the round-trip of one command.
+	 */
+	void roundTrip() {
+		commands++;
+		if (latencyNanos > 0) {
+			LockSupport.parkNanos(latencyNanos);
+		}
+	}
+
+	@Override
+	public void get(String url) {
+		roundTrip();
+		currentUrl = url;
+	}
+
+	@Override
+	public String getCurrentUrl() {
+		roundTrip();
+		return currentUrl;
+	}
+
+	@Override
+	public String getTitle() {
+		roundTrip();
+		return "Fake page";
+	}
+
+	@Override
+	public List<WebElement> findElements(By by) {
+		roundTrip();
+		List<WebElement> elements = new ArrayList<>(elementCount);
+		for (int i = 0; i < elementCount; i++) {
+			elements.add(new FakeWebElement(this, by.toString(), i));
+		}
+		return elements;
+	}
+
+	@Override
+	public WebElement findElement(By by) {
+		roundTrip();
+		return new FakeWebElement(this, by.toString(), 0);
+	}
+
+	@Override
+	public String getPageSource() {
+		roundTrip();
+		return "<html><body></body></html>";
+	}
+
+	@Override
+	public void close() {
+		roundTrip();
+	}
+
+	@Override
+	public void quit() {
+		roundTrip();
+	}
+
+	@Override
+	public Set<String> getWindowHandles() {
+		roundTrip();
+		return Collections.singleton("window-1");
+	}
+
+	@Override
+	public String getWindowHandle() {
+		roundTrip();
+		return "window-1";
+	}
+
+	@Override
+	public TargetLocator switchTo() {
+		throw new UnsupportedOperationException("switchTo is not simulated");
+	}
+
+	@Override
+	public Navigation navigate() {
+		return new FakeNavigation();
+	}
+
+	@Override
+	public Options manage() {
+		return new FakeOptions();
+	}
+
+	@Override
+	public Object executeScript(String script, Object... args) {
+		roundTrip();
+		return answer(script, args);
+	}
+
+	@Override
+	public Object executeAsyncScript(String script, Object... args) {
+		roundTrip();
+		if (script.contains("return missing(") || script.contains("missing(xpaths)")) {
+			return Collections.emptyList();
+		}
+		// MutationWaits: the condition is met at once
+		if (args.length > 2 && ("VISIBLE".equals(args[2]) || "CLICKABLE".equals(args[2]))) {
+			return args[1] instanceof WebElement ? args[1] : new FakeWebElement(this, String.valueOf(args[0]), 0);
+		}
+		return Boolean.TRUE;
+	}
+
+	private Object answer(String script, Object... args) {
+		if (script.contains("return missing(")) {
+			return Collections.emptyList();
+		}
+		if (script.contains("return fields;")) {
+			List<Object> fields = new ArrayList<>();
+			for (Object xpath : (List<?>) args[0]) {
+				fields.add(Arrays.asList(new FakeWebElement(this, String.valueOf(xpath), 0), ""));
+			}
+			return fields;
+		}
+		if (script.contains("return texts;")) {
+			List<String> texts = new ArrayList<>(elementCount);
+			for (int i = 0; i < elementCount; i++) {
+				texts.add("Element " + i);
+			}
+			return texts;
+		}
+		if (script.contains("return results;")) {
+			Map<String, Object> results = new LinkedHashMap<>();
+			Matcher matcher = BATCH_KEY.matcher(script);
+			while (matcher.find()) {
+				results.put(matcher.group(1), 1200L);
+			}
+			return results;
+		}
+		return null;
+	}
+
+	@Override
+	public void perform(Collection<Sequence> actions) {
+		roundTrip();
+	}
+
+	@Override
+	public void resetInputState() {
+		roundTrip();
+	}
+
+	private class FakeNavigation implements Navigation {
+
+		@Override
+		public void back() {
+			roundTrip();
+		}
+
+		@Override
+		public void forward() {
+			roundTrip();
+		}
+
+		@Override
+		public void to(String url) {
+			get(url);
+		}
+
+		@Override
+		public void to(java.net.URL url) {
+			get(url.toString());
+		}
+
+		@Override
+		public void refresh() {
+			roundTrip();
+		}
+	}
+
+	private class FakeOptions implements Options {
+
+		private final Set<Cookie> cookies = new HashSet<>();
+
+		@Override
+		public void addCookie(Cookie cookie) {
+			roundTrip();
+			cookies.add(cookie);
+		}
+
+		@Override
+		public void deleteCookieNamed(String name) {
+			roundTrip();
+		}
+
+		@Override
+		public void deleteCookie(Cookie cookie) {
+			roundTrip();
+		}
+
+		@Override
+		public void deleteAllCookies() {
+			roundTrip();
+			cookies.clear();
+		}
+
+		@Override
+		public Set<Cookie> getCookies() {
+			roundTrip();
+			return cookies;
+		}
+
+		@Override
+		public Cookie getCookieNamed(String name) {
+			roundTrip();
+			return null;
+		}
+
+		@Override
+		public Timeouts timeouts() {
+			return new Timeouts() {
+
+				@Override
+				public Timeouts implicitlyWait(long time, TimeUnit unit) {
+					roundTrip();
+					return this;
+				}
+
+				@Override
+				public Timeouts setScriptTimeout(long time, TimeUnit unit) {
+					roundTrip();
+					return this;
+				}
+
+				@Override
+				public Timeouts pageLoadTimeout(long time, TimeUnit unit) {
+					roundTrip();
+					return this;
+				}
+			};
+		}
+
+		@Override
+		public ImeHandler ime() {
+			throw new UnsupportedOperationException("ime is not simulated");
+		}
+
+		@Override
+		public Window window() {
+			throw new UnsupportedOperationException("window is not simulated");
+		}
+
+		@Override
+		public Logs logs() {
+			throw new UnsupportedOperationException("logs are not simulated");
+		}
+	}
+}
@@ -0,0 +1,172 @@
+package com.java.testsupport;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+
+/**
+ * Element of a FakeWebDriver. Every call costs one simulated round-trip.
+ * Elements located with an xpath containing "select" behave as a drop down
+ * whose options are the driver's options.
+ */
+public class FakeWebElement implements WebElement {
+
+	private static final Pattern OPTION_TEXT = Pattern.compile("= [\"']([^\"']*)[\"']");
+
+	private final FakeWebDriver driver;
+	private final String locator;
+	private final int index;
+	// drop downs: the selected option, options: their drop down
+	private final FakeWebElement select;
+	private int selected;
+
+	FakeWebElement(FakeWebDriver driver, String locator, int index) {
+		this(driver, locator, index, null);
+	}
+
+	private FakeWebElement(FakeWebDriver driver, String locator, int index, FakeWebElement select) {
+		this.driver = driver;
+		this.locator = locator;
+		this.index = index;
+		this.select = select;
+	}
+
+	private boolean isSelect() {
+		return select == null && locator.contains("select");
+	}
+
+	@Override
+	public void click() {
+		driver.roundTrip();
+		if (select != null) {
+			select.selected = index;
+		}
+	}
+
+	@Override
+	public void submit() {
+		driver.roundTrip();
+	}
+
+	@Override
+	public void sendKeys(CharSequence... keysToSend) {
+		driver.roundTrip();
+	}
+
+	@Override
+	public void clear() {
+		driver.roundTrip();
+	}
+
+	@Override
+	public String getTagName() {
+		driver.roundTrip();
+		if (select != null) {
+			return "option";
+		}
+		return isSelect() ? "select" : "div";
+	}
+
+	@Override
+	public String getAttribute(String name) {
+		driver.roundTrip();
+		if ("value".equals(name)) {
+			return "";
+		}
+		if ("index".equals(name)) {
+			return String.valueOf(index);
+		}
+		return null;
+	}
+
+	@Override
+	public boolean isSelected() {
+		driver.roundTrip();
+		return select != null && select.selected == index;
+	}
+
+	@Override
+	public boolean isEnabled() {
+		driver.roundTrip();
+		return true;
+	}
+
+	@Override
+	public String getText() {
+		driver.roundTrip();
+		if (select != null) {
+			return driver.getOptions().get(index);
+		}
+		return "Element " + index;
+	}
+
+	@Override
+	public List<WebElement> findElements(By by) {
+		driver.roundTrip();
+		List<WebElement> found = new ArrayList<>();
+		if (isSelect()) {
+			// Select looks options up by their text or takes all of them
+			Matcher matcher = OPTION_TEXT.matcher(by.toString());
+			String text = matcher.find() ? matcher.group(1) : null;
+			List<String> options = driver.getOptions();
+			for (int i = 0; i < options.size(); i++) {
+				if (text == null || text.equals(options.get(i))) {
+					found.add(new FakeWebElement(driver, by.toString(), i, this));
+				}
+			}
+		} else {
+			found.add(new FakeWebElement(driver, by.toString(), 0));
+		}
+		return found;
+	}
+
+	@Override
+	public WebElement findElement(By by) {
+		List<WebElement> found = findElements(by);
+		return found.get(0);
+	}
+
+	@Override
+	public boolean isDisplayed() {
+		driver.roundTrip();
+		return true;
+	}
+
+	@Override
+	public Point getLocation() {
+		driver.roundTrip();
+		return new Point(0, 0);
+	}
+
+	@Override
+	public Dimension getSize() {
+		driver.roundTrip();
+		return new Dimension(100, 20);
+	}
+
+	@Override
+	public Rectangle getRect() {
+		driver.roundTrip();
+		return new Rectangle(0, 0, 20, 100);
+	}
+
+	@Override
+	public String getCssValue(String propertyName) {
+		driver.roundTrip();
+		return "";
+	}
+
+	@Override
+	public <X> X getScreenshotAs(OutputType<X> target) throws WebDriverException {
+		throw new UnsupportedOperationException("screenshots are not simulated");
+	}
+}
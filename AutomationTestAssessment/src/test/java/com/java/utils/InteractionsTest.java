@@ -0,0 +1,155 @@
+package com.java.utils;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.lang.reflect.Proxy;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openqa.selenium.ElementClickInterceptedException;
+import org.openqa.selenium.ElementNotInteractableException;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import org.testng.annotations.Test;
+
+import com.java.testsupport.FakeWebDriver;
+import com.java.utils.Interactions.ClickAttempts;
+import com.java.utils.Interactions.Path;
+
+/**
+ * Checks the paths taken by the click attempts on elements refusing, or not
+ * ready for, native clicks.
+ */
+public class InteractionsTest {
+
+	/**
+	 * An element whose native clicks throw the errors passed, in order, then get
+	 * through.
+	 */
+	private static class StubElement {
+
+		private final Deque<WebDriverException> errors;
+		private final Deque<Boolean> enabled = new ArrayDeque<>();
+		private int clicks;
+
+		StubElement(WebDriverException... errors) {
+			this.errors = new ArrayDeque<>(Arrays.asList(errors));
+		}
+
+		WebElement proxy() {
+			return (WebElement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { WebElement.class },
+					(proxy, method, args) -> {
+						switch (method.getName()) {
+						case "isEnabled":
+							return enabled.isEmpty() ? Boolean.TRUE : enabled.poll();
+						case "click":
+							clicks++;
+							if (!errors.isEmpty()) {
+								throw errors.poll();
+							}
+							return null;
+						case "hashCode":
+							return System.identityHashCode(proxy);
+						case "equals":
+							return proxy == args[0];
+						default:
+							return null;
+						}
+					});
+		}
+	}
+
+	/**
+	 * Stale and missing elements are retried natively, only refused clicks count
+	 * towards the switch to Actions.
+	 */
+	@Test
+	public void testOnlyRefusedClicksSwitchToActions() {
+		StubElement stub = new StubElement(new StaleElementReferenceException("stale"),
+				new NoSuchElementException("missing"), new StaleElementReferenceException("stale"),
+				new ElementNotInteractableException("not interactable"));
+		ClickAttempts attempts = new ClickAttempts(new FakeWebDriver(0), stub.proxy());
+		for (int i = 0; i < 4; i++) {
+			assertNull(attempts.tryClick());
+		}
+		assertEquals(attempts.tryClick(), Path.NATIVE);
+		assertEquals(stub.clicks, 5);
+
+		StubElement refusing = new StubElement(new ElementNotInteractableException("not interactable"),
+				new ElementNotInteractableException("not interactable"),
+				new ElementNotInteractableException("not interactable"));
+		ClickAttempts refused = new ClickAttempts(new FakeWebDriver(0), refusing.proxy());
+		for (int i = 0; i < 3; i++) {
+			assertNull(refused.tryClick());
+		}
+		assertEquals(refused.tryClick(), Path.ACTIONS);
+		assertEquals(refusing.clicks, 3);
+	}
+
+	/**
+	 * A disabled element isn't clicked until it is enabled.
+	 */
+	@Test
+	public void testDisabledElementIsNotClicked() {
+		StubElement stub = new StubElement();
+		stub.enabled.add(false);
+		stub.enabled.add(false);
+		ClickAttempts attempts = new ClickAttempts(new FakeWebDriver(0), stub.proxy());
+		assertNull(attempts.tryClick());
+		assertNull(attempts.tryClick());
+		assertEquals(stub.clicks, 0);
+		assertEquals(attempts.tryClick(), Path.NATIVE);
+	}
+
+	/**
+	 * An intercepted click is tried again natively while the overlay may go away,
+	 * and only sent by script once the element stayed covered.
+	 */
+	@Test
+	public void testInterceptedClicks() {
+		AtomicLong now = new AtomicLong();
+		Clock clock = new Clock() {
+
+			@Override
+			public ZoneId getZone() {
+				return ZoneOffset.UTC;
+			}
+
+			@Override
+			public Clock withZone(ZoneId zone) {
+				return this;
+			}
+
+			@Override
+			public Instant instant() {
+				return Instant.ofEpochMilli(now.get());
+			}
+		};
+
+		StubElement fading = new StubElement(new ElementClickInterceptedException("click intercepted"),
+				new ElementClickInterceptedException("click intercepted"));
+		ClickAttempts attempts = new ClickAttempts(new FakeWebDriver(0), fading.proxy(), clock);
+		assertNull(attempts.tryClick());
+		now.addAndGet(500);
+		assertNull(attempts.tryClick());
+		assertEquals(attempts.tryClick(), Path.NATIVE);
+		assertEquals(fading.clicks, 3);
+
+		StubElement covered = new StubElement(new ElementClickInterceptedException("click intercepted"),
+				new ElementClickInterceptedException("click intercepted"));
+		ClickAttempts coveredAttempts = new ClickAttempts(new FakeWebDriver(0), covered.proxy(), clock);
+		assertNull(coveredAttempts.tryClick());
+		now.addAndGet(Interactions.INTERCEPTED_RETRY_MILLIS);
+		assertEquals(coveredAttempts.tryClick(), Path.SCRIPT);
+		assertEquals(covered.clicks, 2);
+	}
+}
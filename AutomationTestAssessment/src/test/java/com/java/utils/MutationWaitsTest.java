@@ -0,0 +1,200 @@
+package com.java.utils;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.InvalidSelectorException;
+import org.openqa.selenium.JavascriptException;
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WrapsElement;
+import org.testng.annotations.Test;
+
+import com.java.binding.LazyWebElement;
+import com.java.testsupport.FakeWebDriver;
+import com.java.utils.MutationWaits.Condition;
+
+/**
+ * Runs the MutationObserver waits against the fake driver, whose scripts meet
+ * their condition at once unless told otherwise.
+ */
+public class MutationWaitsTest {
+
+	/**
+	 * Answers every script with the error passed.
+	 */
+	private static class FailingDriver extends FakeWebDriver {
+
+		private final WebDriverException error;
+		private int scripts;
+
+		FailingDriver(WebDriverException error) {
+			super(0);
+			this.error = error;
+		}
+
+		@Override
+		public Object executeScript(String script, Object... args) {
+			scripts++;
+			throw error;
+		}
+
+		@Override
+		public Object executeAsyncScript(String script, Object... args) {
+			scripts++;
+			throw error;
+		}
+	}
+
+	/**
+	 * The elements found, the first ones are stale when passed to a script.
+	 */
+	private static class StaleDriver extends FakeWebDriver {
+
+		private final List<WebElement> found = new ArrayList<>();
+		private final int staleCount;
+		// the script finds the first elements removed instead of failing
+		private final boolean detached;
+
+		StaleDriver(int staleCount, boolean detached) {
+			super(0);
+			this.staleCount = staleCount;
+			this.detached = detached;
+		}
+
+		@Override
+		public WebElement findElement(By by) {
+			WebElement element = super.findElement(by);
+			found.add(element);
+			return element;
+		}
+
+		@Override
+		public Object executeAsyncScript(String script, Object... args) {
+			// as RemoteWebDriver does, the element passed is unwrapped
+			Object element = args[1] instanceof WrapsElement ? ((WrapsElement) args[1]).getWrappedElement() : args[1];
+			if (found.indexOf(element) >= 0 && found.indexOf(element) < staleCount) {
+				if (detached) {
+					return "detached";
+				}
+				throw new StaleElementReferenceException("stale element reference: element is not attached");
+			}
+			return super.executeAsyncScript(script, args);
+		}
+	}
+
+	/**
+	 * A lazy element that went stale is located again and the wait goes on.
+	 */
+	@Test
+	public void testStaleLazyElementIsLocatedAgain() {
+		StaleDriver driver = new StaleDriver(2, false);
+		LazyWebElement element = new LazyWebElement(driver, By.xpath("//button"), false);
+		WebElement stale = element.getWrappedElement();
+
+		long start = System.currentTimeMillis();
+		MutationWaits.waitForElement(driver, element, Condition.VISIBLE, 5);
+
+		assertEquals(driver.found.size(), 3);
+		assertNotSame(element.getWrappedElement(), stale);
+		assertTrue(System.currentTimeMillis() - start < 1000, "the wait retried until the timeout");
+	}
+
+	/**
+	 * A plain element can't be located again, the stale error is thrown at once.
+	 */
+	@Test
+	public void testStalePlainElementFails() {
+		StaleDriver driver = new StaleDriver(1, false);
+		WebElement element = driver.findElement(By.xpath("//button"));
+
+		long start = System.currentTimeMillis();
+		try {
+			MutationWaits.waitForElement(driver, element, Condition.CLICKABLE, 5);
+			fail("the element is stale");
+		} catch (StaleElementReferenceException e) {
+			assertTrue(System.currentTimeMillis() - start < 1000, "the wait retried until the timeout");
+		}
+	}
+
+	/**
+	 * An element removed while it was waited for ends the script, the lazy element
+	 * is located again.
+	 */
+	@Test
+	public void testDetachedElementIsLocatedAgain() {
+		StaleDriver driver = new StaleDriver(1, true);
+		LazyWebElement element = new LazyWebElement(driver, By.xpath("//button"), false);
+
+		MutationWaits.waitForElement(driver, element, Condition.CLICKABLE, 5);
+		assertEquals(driver.found.size(), 2);
+	}
+
+	/**
+	 * A script error is thrown at once, by the waits and the page readiness,
+	 * while an unloaded document is checked again until the timeout.
+	 */
+	@Test
+	public void testScriptErrorsAreNotRetried() {
+		JavascriptException syntax = new JavascriptException(
+				"javascript error: Failed to execute 'evaluate' on 'Document': The string '//div[' is not a valid XPath expression.");
+		FailingDriver driver = new FailingDriver(syntax);
+		try {
+			MutationWaits.waitForXPath(driver, "//div[", Condition.VISIBLE, null, 5);
+			fail("the xpath is malformed");
+		} catch (JavascriptException e) {
+			assertEquals(driver.scripts, 1);
+		}
+
+		FailingDriver readinessDriver = new FailingDriver(new InvalidSelectorException("invalid selector"));
+		try {
+			new PageReadiness().requireVisible("Broken", "//div[").await(readinessDriver, 5, getClass());
+			fail("the xpath is malformed");
+		} catch (InvalidSelectorException e) {
+			assertEquals(readinessDriver.scripts, 1);
+		}
+
+		FailingDriver navigating = new FailingDriver(
+				new JavascriptException("javascript error: document unloaded while waiting for result"));
+		try {
+			MutationWaits.waitForXPath(navigating, "//div", Condition.VISIBLE, null, 1);
+			fail("the document never loads");
+		} catch (TimeoutException e) {
+			assertTrue(navigating.scripts > 1, navigating.scripts + " scripts");
+		}
+	}
+
+	/**
+	 * A closed session fails at once, by both engines, instead of being retried
+	 * until the timeout and reported as a missing element.
+	 */
+	@Test
+	public void testDeadSessionFailsFast() {
+		FailingDriver driver = new FailingDriver(new NoSuchSessionException("invalid session id"));
+		long start = System.currentTimeMillis();
+		try {
+			MutationWaits.waitForXPath(driver, "//div", Condition.VISIBLE, null, 5);
+			fail("the session is closed");
+		} catch (NoSuchSessionException e) {
+			assertEquals(driver.scripts, 1);
+		}
+
+		FailingDriver readinessDriver = new FailingDriver(new NoSuchSessionException("invalid session id"));
+		try {
+			new PageReadiness().requireVisible("Header", "//header").await(readinessDriver, 5, getClass());
+			fail("the session is closed");
+		} catch (NoSuchSessionException e) {
+			assertEquals(readinessDriver.scripts, 1);
+		}
+		assertTrue(System.currentTimeMillis() - start < 1000, "the waits retried until the timeout");
+	}
+}
@@ -0,0 +1,75 @@
+package com.java.utils;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.Arrays;
+
+import org.testng.annotations.Test;
+
+import com.java.testsupport.FakeWebDriver;
+
+/**
+ * Checks the script a batch sends and the values it reads back.
+ */
+public class ScriptBatchTest {
+
+	/**
+	 * Reads and runs are sent in order, a read can use the values already read
+	 * and the arguments, and an appended batch keeps its keys.
+	 */
+	@Test
+	public void testToScript() {
+		ScriptBatch heights = new ScriptBatch().read("winH", "window.innerHeight").read("it's", "1");
+		ScriptBatch batch = new ScriptBatch().append(heights)
+				.read("max", "Math.max(results.winH, args[0])")
+				.run("window.scrollBy(0, results.max)");
+
+		assertEquals(batch.toScript(), "var args = arguments; var results = {};\n"
+				+ "results['winH'] = (window.innerHeight);\n"
+				+ "results['it\\'s'] = (1);\n"
+				+ "results['max'] = (Math.max(results.winH, args[0]));\n"
+				+ "window.scrollBy(0, results.max);\n"
+				+ "return results;");
+		assertEquals(batch.getKeys(), Arrays.asList("winH", "it's", "max"));
+		assertSame(batch.toScript(), batch.toScript());
+
+		// the script is built again once the batch changed
+		batch.run("window.scrollTo(0, 0)");
+		assertTrue(batch.toScript().endsWith("window.scrollTo(0, 0);\nreturn results;"));
+	}
+
+	/**
+	 * A key can only be read once.
+	 */
+	@Test
+	public void testDuplicateKeyFails() {
+		ScriptBatch batch = new ScriptBatch().read("winH", "window.innerHeight");
+		try {
+			batch.read("winH", "document.body.offsetHeight");
+			fail("the key is already read");
+		} catch (IllegalArgumentException e) {
+			assertEquals(e.getMessage(), "Key 'winH' is already read by this batch.");
+		}
+	}
+
+	/**
+	 * The values are read back in one command, a missing or non-numeric value
+	 * reads as 0.
+	 */
+	@Test
+	public void testExecute() {
+		FakeWebDriver driver = new FakeWebDriver(0);
+		ScriptBatch.Results results = new ScriptBatch().read("winH", "window.innerHeight")
+				.read("docOff", "document.body.offsetHeight").execute(driver);
+
+		assertEquals(driver.getCommands(), 1);
+		assertEquals(results.getLong("winH"), 1200L);
+		assertEquals(results.getDouble("docOff"), 1200D);
+		assertEquals(results.getLong("missing"), 0L);
+		assertNull(results.get("missing"));
+	}
+}
@@ -0,0 +1,64 @@
+package com.java.utils;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.fail;
+
+import org.openqa.selenium.By;
+import org.testng.annotations.Test;
+
+/**
+ * Checks the placeholders and the escaping of the values inserted.
+ */
+public class XPathTemplateTest {
+
+	private static final XPathTemplate LINK_X = new XPathTemplate("//a[contains(., {0}) and @title = {1}]");
+
+	/**
+	 * A value is quoted with the quote type it doesn't contain, a value containing
+	 * both is built with concat().
+	 */
+	@Test
+	public void testLiteral() {
+		assertEquals(XPathTemplate.literal("Kata"), "'Kata'");
+		assertEquals(XPathTemplate.literal(""), "''");
+		assertEquals(XPathTemplate.literal("Dijkstra's"), "\"Dijkstra's\"");
+		assertEquals(XPathTemplate.literal("Say \"hi\""), "'Say \"hi\"'");
+		assertEquals(XPathTemplate.literal("It's \"done\""), "concat('It', \"'\", 's \"done\"')");
+		assertEquals(XPathTemplate.literal("'\"'"), "concat(\"'\", '\"', \"'\", '')");
+	}
+
+	/**
+	 * A null value fails with a message instead of a NullPointerException.
+	 */
+	@Test
+	public void testNullLiteral() {
+		try {
+			LINK_X.xpath("Kata", null);
+			fail("the value is null");
+		} catch (IllegalArgumentException e) {
+			assertEquals(e.getMessage(), "An xpath literal can't be null.");
+		}
+	}
+
+	/**
+	 * The values fill in the placeholders and a missing one fails, the locators
+	 * are compiled once.
+	 */
+	@Test
+	public void testXPathAndBy() {
+		assertEquals(LINK_X.xpath("Sum of \"pairs\"", "it's"),
+				"//a[contains(., 'Sum of \"pairs\"') and @title = \"it's\"]");
+		try {
+			LINK_X.xpath("Kata");
+			fail("no value for {1}");
+		} catch (IllegalArgumentException e) {
+			assertEquals(e.getMessage(), "No value passed for placeholder {1} of xpath " + LINK_X.getPattern());
+		}
+
+		By by = LINK_X.by("Kata", "Sum");
+		assertEquals(by, By.xpath("//a[contains(., 'Kata') and @title = 'Sum']"));
+		assertSame(LINK_X.by("Kata", "Sum"), by);
+		assertEquals(new XPathTemplate("//li[{x}]").xpath(), "//li[{x}]");
+	}
+}
@@ -0,0 +1,55 @@
+// header and side bar of the logged in pages, with the bookmark menu listing the enrolled kata
+(function() {
+  function slug(name) {
+    return name.toLowerCase().replace(/[^a-z0-9]+/g, '-');
+  }
+
+  function enrolled() {
+    return JSON.parse(localStorage.getItem('enrolled') || '[]');
+  }
+
+  window.portal = {
+    slug: slug,
+    enrolled: enrolled,
+    enroll: function(name) {
+      var all = enrolled();
+      if (all.indexOf(name) < 0) {
+        all.push(name);
+        localStorage.setItem('enrolled', JSON.stringify(all));
+      }
+    }
+  };
+
+  var bookmarks = enrolled().map(function(name) {
+    return '<li><a href="/kata/' + slug(name) + '">' + name + '</a></li>';
+  }).join('');
+
+  var header = document.createElement('header');
+  header.id = 'main_header';
+  header.innerHTML = '<ul>'
+      + '<li class="menu"><i class="bookmark"></i><div class="menu-body"><ul>' + bookmarks + '</ul></div></li>'
+      + '<li class="menu"><a id="header_profile_link" href="#"><img alt="profile"></a>'
+      + '<div class="menu-body"><ul>'
+      + '<li><a href="#">View Profile</a></li>'
+      + '<li><a href="/users/edit">Account Settings</a></li>'
+      + '<li><a href="/trainer/setup">Training Setup</a></li>'
+      + '<li><a href="#">Upgrade to Red</a></li>'
+      + '<li><a href="/">Sign out</a></li>'
+      + '</ul></div></li>'
+      + '</ul>';
+
+  var nav = document.createElement('nav');
+  nav.id = 'sidenav';
+  nav.innerHTML = '<ul>'
+      + '<li><a href="/dashboard">Dashboard</a></li>'
+      + '<li><a href="/kata/search">Kata</a></li>'
+      + '<li><a href="#">Docs</a></li>'
+      + '<li><a href="#">Blog</a></li>'
+      + '<li><a href="#">Kumite</a></li>'
+      + '<li><a href="#">Forum</a></li>'
+      + '<li><a href="#">Leaders</a></li>'
+      + '</ul>';
+
+  document.body.insertBefore(nav, document.body.firstChild);
+  document.body.insertBefore(header, document.body.firstChild);
+})();